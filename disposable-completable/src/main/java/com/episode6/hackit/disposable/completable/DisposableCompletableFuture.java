@@ -0,0 +1,327 @@
+package com.episode6.hackit.disposable.completable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link CompletableFuture} that also implements {@link HasDisposables}, the
+ * {@link CompletableFuture} equivalent of disposable-futures' {@code DisposableFuture}, without
+ * the guava dependency.
+ *
+ * {@link #thenApply}, {@link #thenCompose} and {@link #thenCombine} (and their async variants) return
+ * DisposableCompletableFutures that hold on to the stages they depend on, so disposing the end of a
+ * chain cancels it and disposes every stage (and every disposable added via {@link #addDisposable(Disposable)})
+ * back to its source. Other {@link CompletionStage} methods return plain CompletableFutures.
+ *
+ * {@link #flushDisposed()} only returns true once the future is done and all of its disposables have
+ * been flushed, since disposing a pending future would cancel it.
+ */
+public class DisposableCompletableFuture<V> extends CompletableFuture<V> implements HasDisposables, DisposeListener {
+
+  /**
+   * Wrap the supplied stage in a {@link DisposableCompletableFuture}. Disposing the result
+   * cancels the stage (if it's a {@link CompletableFuture}) and disposes the included disposables.
+   * @param stage The stage to wrap
+   * @param disposables {@link Disposable}s to be included in the DisposableCompletableFuture
+   * @param <T> The type of stage being wrapped
+   * @return a {@link DisposableCompletableFuture} with the included disposables attached
+   */
+  public static <T> DisposableCompletableFuture<T> wrap(CompletionStage<T> stage, Disposable... disposables) {
+    if (stage instanceof DisposableCompletableFuture) {
+      DisposableCompletableFuture<T> future = (DisposableCompletableFuture<T>) stage;
+      for (Disposable disposable : disposables) {
+        future.addDisposable(disposable);
+      }
+      return future;
+    }
+
+    DisposableCompletableFuture<T> future = new DisposableCompletableFuture<>(Arrays.asList(disposables));
+    future.addDisposable(upstream(stage));
+    relay(stage, future);
+    return future;
+  }
+
+  /**
+   * Convenience method: Creates a {@link DisposableCompletableFuture} with its value set immediately
+   * @param value The value to set on the resulting future
+   * @param <T> The type of future to create
+   * @return A new, completed {@link DisposableCompletableFuture}
+   */
+  public static <T> DisposableCompletableFuture<T> completed(@Nullable T value) {
+    DisposableCompletableFuture<T> future = new DisposableCompletableFuture<>();
+    future.complete(value);
+    return future;
+  }
+
+  private final Lock mLock = new ReentrantLock();
+  private @Nullable List<Disposable> mDisposables;
+
+  public DisposableCompletableFuture() {
+    mDisposables = new LinkedList<>();
+  }
+
+  private DisposableCompletableFuture(List<Disposable> prefill) {
+    mDisposables = new LinkedList<>();
+    for (Disposable disposable : prefill) {
+      addDisposable(disposable);
+    }
+  }
+
+  /**
+   * Attach a disposable to this future, to be disposed along with it. If this future
+   * has already been disposed, the disposable is disposed immediately.
+   * @param disposable The disposable to attach
+   */
+  public void addDisposable(Disposable disposable) {
+    boolean added;
+    mLock.lock();
+    try {
+      added = mDisposables != null;
+      if (added) {
+        mDisposables.add(disposable);
+      }
+    } finally {
+      mLock.unlock();
+    }
+
+    if (added) {
+      listenTo(disposable);
+    } else {
+      disposable.dispose();
+    }
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenApply(Function<? super V, ? extends U> fn) {
+    return downstream(super.thenApply(fn));
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenApplyAsync(Function<? super V, ? extends U> fn) {
+    return downstream(super.thenApplyAsync(fn));
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenApplyAsync(Function<? super V, ? extends U> fn, Executor executor) {
+    return downstream(super.thenApplyAsync(fn, executor));
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenCompose(Function<? super V, ? extends CompletionStage<U>> fn) {
+    DisposableCompletableFuture<U> next = new DisposableCompletableFuture<>();
+    relay(super.thenCompose(attachInner(fn, next)), next);
+    next.addDisposable(this);
+    return next;
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenComposeAsync(Function<? super V, ? extends CompletionStage<U>> fn) {
+    DisposableCompletableFuture<U> next = new DisposableCompletableFuture<>();
+    relay(super.thenComposeAsync(attachInner(fn, next)), next);
+    next.addDisposable(this);
+    return next;
+  }
+
+  @Override
+  public <U> DisposableCompletableFuture<U> thenComposeAsync(
+      Function<? super V, ? extends CompletionStage<U>> fn,
+      Executor executor) {
+    DisposableCompletableFuture<U> next = new DisposableCompletableFuture<>();
+    relay(super.thenComposeAsync(attachInner(fn, next), executor), next);
+    next.addDisposable(this);
+    return next;
+  }
+
+  @Override
+  public <U, R> DisposableCompletableFuture<R> thenCombine(
+      CompletionStage<? extends U> other,
+      BiFunction<? super V, ? super U, ? extends R> fn) {
+    DisposableCompletableFuture<R> next = downstream(super.thenCombine(other, fn));
+    next.addDisposable(upstream(other));
+    return next;
+  }
+
+  @Override
+  public <U, R> DisposableCompletableFuture<R> thenCombineAsync(
+      CompletionStage<? extends U> other,
+      BiFunction<? super V, ? super U, ? extends R> fn) {
+    DisposableCompletableFuture<R> next = downstream(super.thenCombineAsync(other, fn));
+    next.addDisposable(upstream(other));
+    return next;
+  }
+
+  @Override
+  public <U, R> DisposableCompletableFuture<R> thenCombineAsync(
+      CompletionStage<? extends U> other,
+      BiFunction<? super V, ? super U, ? extends R> fn,
+      Executor executor) {
+    DisposableCompletableFuture<R> next = downstream(super.thenCombineAsync(other, fn, executor));
+    next.addDisposable(upstream(other));
+    return next;
+  }
+
+  /**
+   * Cancel this future (if it's still pending) and dispose everything attached to it,
+   * including the stages it depends on.
+   */
+  @Override
+  public void dispose() {
+    List<Disposable> disposables;
+    mLock.lock();
+    try {
+      disposables = mDisposables;
+      mDisposables = null;
+    } finally {
+      mLock.unlock();
+    }
+    if (disposables == null) {
+      return;
+    }
+
+    cancel(true);
+    MaybeDisposables.disposeList(disposables);
+  }
+
+  @Override
+  public boolean flushDisposed() {
+    if (!isDone()) {
+      return false;
+    }
+
+    // our stages may block, or call back into us, so they're checked outside of mLock
+    List<Disposable> snapshot;
+    mLock.lock();
+    try {
+      if (mDisposables == null) {
+        return true;
+      }
+      snapshot = new ArrayList<>(mDisposables);
+    } finally {
+      mLock.unlock();
+    }
+
+    Set<Object> flushed = MaybeDisposables.findFlushable(snapshot);
+    mLock.lock();
+    try {
+      if (mDisposables == null) {
+        return true;
+      }
+      MaybeDisposables.removeFlushed(mDisposables, flushed);
+      if (mDisposables.isEmpty()) {
+        mDisposables = null;
+        return true;
+      }
+      return false;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void onDisposed(Disposable disposable) {
+    mLock.lock();
+    try {
+      if (mDisposables != null) {
+        mDisposables.remove(disposable);
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private void listenTo(Disposable disposable) {
+    if (disposable instanceof ListenableDisposable) {
+      ((ListenableDisposable) disposable).addDisposeListener(this);
+    }
+  }
+
+  private <U> DisposableCompletableFuture<U> downstream(CompletionStage<U> stage) {
+    DisposableCompletableFuture<U> next = new DisposableCompletableFuture<>();
+    relay(stage, next);
+    next.addDisposable(this);
+    return next;
+  }
+
+  /**
+   * Wrap a thenCompose function so the stage it returns is attached to next (and so cancelled
+   * if next is disposed).
+   */
+  private static <T, U> Function<T, CompletionStage<U>> attachInner(
+      final Function<T, ? extends CompletionStage<U>> fn,
+      final DisposableCompletableFuture<U> next) {
+    return value -> {
+      CompletionStage<U> inner = fn.apply(value);
+      next.addDisposable(upstream(inner));
+      return inner;
+    };
+  }
+
+  /**
+   * @return stage itself if it's disposable, otherwise a disposable that cancels it.
+   */
+  private static Disposable upstream(CompletionStage<?> stage) {
+    if (stage instanceof Disposable) {
+      return (Disposable) stage;
+    }
+    return new StageCanceller(stage);
+  }
+
+  private static <T> void relay(CompletionStage<? extends T> stage, final CompletableFuture<T> target) {
+    stage.whenComplete((value, failure) -> {
+      if (failure != null) {
+        target.completeExceptionally(failure);
+      } else {
+        target.complete(value);
+      }
+    });
+  }
+
+  /**
+   * Cancels a plain {@link CompletionStage}, and reports itself disposed once the stage is done
+   * (or if it can't be cancelled) so it can be flushed.
+   */
+  private static class StageCanceller implements CheckedDisposable {
+
+    private final @Nullable CompletableFuture<?> mFuture;
+
+    StageCanceller(CompletionStage<?> stage) {
+      CompletableFuture<?> future;
+      try {
+        future = stage.toCompletableFuture();
+      } catch (UnsupportedOperationException e) {
+        future = null;
+      }
+      mFuture = future;
+    }
+
+    @Override
+    public void dispose() {
+      if (mFuture != null) {
+        mFuture.cancel(true);
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return mFuture == null || mFuture.isDone();
+    }
+  }
+}
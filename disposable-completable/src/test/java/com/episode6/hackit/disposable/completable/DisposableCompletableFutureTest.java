@@ -0,0 +1,144 @@
+package com.episode6.hackit.disposable.completable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link DisposableCompletableFuture}
+ */
+public class DisposableCompletableFutureTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Disposable mDisposable;
+  @Mock CheckedDisposable mCheckedDisposable;
+
+  final CompletableFuture<Integer> mSource = new CompletableFuture<>();
+
+  @Test
+  public void testChainCompletes() throws Exception {
+    DisposableCompletableFuture<String> chain = DisposableCompletableFuture.wrap(mSource)
+        .thenApply(value -> value + 1)
+        .thenCompose(value -> CompletableFuture.completedFuture(value * 2))
+        .thenCombine(CompletableFuture.completedFuture("!"), (value, suffix) -> value + suffix);
+
+    mSource.complete(1);
+
+    assertThat(chain.get()).isEqualTo("4!");
+  }
+
+  @Test
+  public void testFailurePropagates() throws InterruptedException {
+    RuntimeException failure = new RuntimeException("failed");
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource).thenApply(value -> value + 1);
+
+    mSource.completeExceptionally(failure);
+
+    try {
+      chain.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+    }
+  }
+
+  @Test
+  public void testDisposeCancelsUpstream() {
+    AtomicBoolean applied = new AtomicBoolean(false);
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource, mDisposable)
+        .thenApply(value -> {
+          applied.set(true);
+          return value;
+        })
+        .thenApply(value -> value + 1);
+
+    chain.dispose();
+    mSource.complete(1);
+
+    assertThat(chain.isCancelled()).isTrue();
+    assertThat(mSource.isCancelled()).isTrue();
+    assertThat(applied.get()).isFalse();
+    verify(mDisposable).dispose();
+  }
+
+  @Test
+  public void testDisposeCancelsComposedStage() {
+    CompletableFuture<Integer> inner = new CompletableFuture<>();
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource).thenCompose(value -> inner);
+    mSource.complete(1);
+
+    chain.dispose();
+
+    assertThat(inner.isCancelled()).isTrue();
+    assertThat(chain.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void testDisposeCancelsCombinedStages() {
+    CompletableFuture<Integer> other = new CompletableFuture<>();
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource)
+        .thenCombine(other, (first, second) -> first + second);
+
+    chain.dispose();
+
+    assertThat(mSource.isCancelled()).isTrue();
+    assertThat(other.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void testFlushPending() {
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource).thenApply(value -> value + 1);
+
+    assertThat(chain.flushDisposed()).isFalse();
+  }
+
+  @Test
+  public void testFlushCompleted() {
+    when(mCheckedDisposable.isDisposed()).thenReturn(false);
+    DisposableCompletableFuture<Integer> chain = DisposableCompletableFuture.wrap(mSource, mCheckedDisposable)
+        .thenApply(value -> value + 1);
+    mSource.complete(1);
+
+    assertThat(chain.flushDisposed()).isFalse();
+
+    when(mCheckedDisposable.isDisposed()).thenReturn(true);
+
+    assertThat(chain.flushDisposed()).isTrue();
+
+    chain.dispose();
+
+    verify(mCheckedDisposable, never()).dispose();
+  }
+
+  @Test
+  public void testAddDisposableAfterDispose() {
+    DisposableCompletableFuture<Integer> future = new DisposableCompletableFuture<>();
+    future.dispose();
+
+    future.addDisposable(mDisposable);
+
+    assertThat(future.isCancelled()).isTrue();
+    verify(mDisposable).dispose();
+  }
+
+  @Test
+  public void testCompleted() throws Exception {
+    DisposableCompletableFuture<String> future = DisposableCompletableFuture.completed("value");
+
+    assertThat(future.get()).isEqualTo("value");
+    assertThat(future.flushDisposed()).isTrue();
+  }
+}
@@ -2,17 +2,21 @@ package com.episode6.hackit.disposable.future;
 
 import com.episode6.hackit.disposable.*;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Utility methods for dealing with {@link DisposableFuture}s
@@ -60,6 +64,27 @@ public class DisposableFutures {
     return new DelegateDisposableFuture<>(future, disposables);
   }
 
+  /**
+   * Wrap the supplied future in a {@link DisposableFuture} that cancels the supplied future when
+   * disposed (on top of disposing the included disposables). Futures created from the result via
+   * {@link #transformAndWrap} / {@link #transformAsyncAndWrap} inherit this behavior, so disposing
+   * the end of a pipeline stops every stage of it.
+   * @param future The future to wrap
+   * @param mayInterruptIfRunning Passed to {@link java.util.concurrent.Future#cancel(boolean)} on dispose
+   * @param disposables {@link Disposable}s to be included in the DisposableFuture
+   * @param <T> The type of future being wrapped
+   * @return a {@link DisposableFuture} with the included disposables attached
+   */
+  public static <T> DisposableFuture<T> wrapCancelOnDispose(
+      ListenableFuture<T> future,
+      boolean mayInterruptIfRunning,
+      Disposable... disposables) {
+    // wrapping with a collection always gives us a DelegateDisposableFuture
+    DelegateDisposableFuture<T> disposableFuture = (DelegateDisposableFuture<T>) wrap(future, Arrays.asList(disposables));
+    disposableFuture.cancelOnDispose(mayInterruptIfRunning);
+    return disposableFuture;
+  }
+
   /**
    * Convenience method: Creates a {@link DisposableFuture} with its value set immediately
    * upon construction
@@ -104,7 +129,7 @@ public class DisposableFutures {
       Function<I, O> transform,
       Executor executor) {
     if (input instanceof Disposable) {
-      return wrap(
+      return wrapTransformed(
           Futures.transform(input, transform, executor),
           (Disposable)input);
     }
@@ -127,34 +152,320 @@ public class DisposableFutures {
       AsyncFunction<I, O> transform,
       Executor executor) {
     if (input instanceof Disposable) {
-      return wrap(
+      return wrapTransformed(
           Futures.transformAsync(input, transform, executor),
           (Disposable)input);
     }
     return transformAsyncAndWrap(wrap(input), transform, executor);
   }
 
-  private static class DelegateDisposableFuture<V> extends AbstractDelegateDisposable<List<Disposable>> implements DisposableFuture<V> {
+  /**
+   * Start a {@link DisposablePipeline}: a chain of transforms that builds into a single {@link DisposableFuture}
+   * holding the source and every attached disposable in one flat collection, rather than one nested
+   * DisposableFuture per stage (as chaining {@link #transformAndWrap} would).
+   * @param source The future to transform (included in the built future's disposables if it's {@link Disposable})
+   * @param <T> The source type
+   * @return A new {@link DisposablePipeline}
+   */
+  public static <T> DisposablePipeline<T> pipeline(ListenableFuture<T> source) {
+    return new DisposablePipeline<>(source);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#allAsList(ListenableFuture[])} that owns all of
+   * the supplied futures. Disposing the result disposes every input that is {@link Disposable}.
+   * @param futures The futures to combine
+   * @param <V> The value type of the inputs
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  @SafeVarargs
+  public static <V> DisposableFuture<List<V>> allAsList(ListenableFuture<? extends V>... futures) {
+    // copied element by element: javac flags any call the varargs array itself is passed to
+    ImmutableList.Builder<ListenableFuture<? extends V>> inputs = ImmutableList.builder();
+    for (ListenableFuture<? extends V> future : futures) {
+      inputs.add(future);
+    }
+    return allAsListOf(inputs.build(), false);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#allAsList(Iterable)} that owns all of
+   * the supplied futures. Disposing the result disposes every input that is {@link Disposable}.
+   * @param futures The futures to combine
+   * @param cancelRemainingOnFailure If true, the remaining inputs are cancelled (without interrupting)
+   *                                 as soon as any input fails or is cancelled
+   * @param <V> The value type of the inputs
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  public static <V> DisposableFuture<List<V>> allAsList(
+      Iterable<? extends ListenableFuture<? extends V>> futures,
+      boolean cancelRemainingOnFailure) {
+    return allAsListOf(ImmutableList.copyOf(futures), cancelRemainingOnFailure);
+  }
+
+  private static <V> DisposableFuture<List<V>> allAsListOf(
+      ImmutableList<ListenableFuture<? extends V>> inputs,
+      boolean cancelRemainingOnFailure) {
+    return wrapFanIn(Futures.allAsList(inputs), inputs, cancelRemainingOnFailure);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#successfulAsList(ListenableFuture[])} that owns all
+   * of the supplied futures. Disposing the result disposes every input that is {@link Disposable}.
+   * @param futures The futures to combine
+   * @param <V> The value type of the inputs
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  @SafeVarargs
+  public static <V> DisposableFuture<List<V>> successfulAsList(ListenableFuture<? extends V>... futures) {
+    ImmutableList.Builder<ListenableFuture<? extends V>> inputs = ImmutableList.builder();
+    for (ListenableFuture<? extends V> future : futures) {
+      inputs.add(future);
+    }
+    return successfulAsListOf(inputs.build(), false);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#successfulAsList(Iterable)} that owns all of
+   * the supplied futures. Disposing the result disposes every input that is {@link Disposable}.
+   * @param futures The futures to combine
+   * @param cancelRemainingOnFailure If true, the remaining inputs are cancelled (without interrupting)
+   *                                 as soon as any input fails or is cancelled (they'll show up as nulls
+   *                                 in the resulting list)
+   * @param <V> The value type of the inputs
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  public static <V> DisposableFuture<List<V>> successfulAsList(
+      Iterable<? extends ListenableFuture<? extends V>> futures,
+      boolean cancelRemainingOnFailure) {
+    return successfulAsListOf(ImmutableList.copyOf(futures), cancelRemainingOnFailure);
+  }
+
+  private static <V> DisposableFuture<List<V>> successfulAsListOf(
+      ImmutableList<ListenableFuture<? extends V>> inputs,
+      boolean cancelRemainingOnFailure) {
+    return wrapFanIn(Futures.successfulAsList(inputs), inputs, cancelRemainingOnFailure);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#whenAllComplete(ListenableFuture[])} that calls
+   * the combiner once every input is done, and owns all of the supplied futures. Disposing the result
+   * disposes every input that is {@link Disposable}.
+   * @param combiner The {@link Callable} to call once every input is done
+   * @param executor The executor to call the combiner on
+   * @param futures The futures to wait for
+   * @param <C> The type returned by the combiner
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  public static <C> DisposableFuture<C> whenAllComplete(
+      Callable<C> combiner,
+      Executor executor,
+      ListenableFuture<?>... futures) {
+    return whenAllComplete(Arrays.asList(futures), combiner, executor, false);
+  }
+
+  /**
+   * Creates a {@link DisposableFuture} via {@link Futures#whenAllComplete(Iterable)} that calls
+   * the combiner once every input is done, and owns all of the supplied futures. Disposing the result
+   * disposes every input that is {@link Disposable}.
+   * @param futures The futures to wait for
+   * @param combiner The {@link Callable} to call once every input is done
+   * @param executor The executor to call the combiner on
+   * @param cancelRemainingOnFailure If true, the remaining inputs are cancelled (without interrupting)
+   *                                 as soon as any input fails or is cancelled
+   * @param <C> The type returned by the combiner
+   * @return A new {@link DisposableFuture} that owns the inputs
+   */
+  public static <C> DisposableFuture<C> whenAllComplete(
+      Iterable<? extends ListenableFuture<?>> futures,
+      Callable<C> combiner,
+      Executor executor,
+      boolean cancelRemainingOnFailure) {
+    ImmutableList<ListenableFuture<?>> inputs = ImmutableList.copyOf(futures);
+    return wrapFanIn(Futures.whenAllComplete(inputs).call(combiner, executor), inputs, cancelRemainingOnFailure);
+  }
+
+  /**
+   * @return null if the future is not a cancel-on-dispose {@link DisposableFuture}, otherwise whether
+   * it interrupts on dispose.
+   */
+  static @Nullable Boolean getCancelOnDispose(ListenableFuture<?> future) {
+    if (!(future instanceof DelegateDisposableFuture)) {
+      return null;
+    }
+    int cancelMode = ((DelegateDisposableFuture<?>) future).mCancelMode;
+    return cancelMode == DelegateDisposableFuture.KEEP_RUNNING ? null : cancelMode == DelegateDisposableFuture.CANCEL_AND_INTERRUPT;
+  }
+
+  /**
+   * Wrap the output of a transform, attaching its input and inheriting the input's cancel-on-dispose mode.
+   */
+  private static <O> DisposableFuture<O> wrapTransformed(ListenableFuture<O> output, Disposable input) {
+    DelegateDisposableFuture<O> disposableFuture = new DelegateDisposableFuture<>(output, Collections.singletonList(input));
+    if (input instanceof DelegateDisposableFuture) {
+      disposableFuture.mCancelMode = ((DelegateDisposableFuture<?>) input).mCancelMode;
+    }
+    return disposableFuture;
+  }
+
+  /**
+   * Wrap the output of a fan-in combinator, attaching a single {@link FanIn} that owns all of its inputs
+   * (sharing the immutable list guava already holds on to, rather than adding a wrapper per input).
+   */
+  private static <O> DisposableFuture<O> wrapFanIn(
+      ListenableFuture<O> output,
+      ImmutableList<? extends ListenableFuture<?>> inputs,
+      boolean cancelRemainingOnFailure) {
+    FanIn fanIn = new FanIn(inputs);
+    if (cancelRemainingOnFailure) {
+      fanIn.cancelRemainingOnFailure();
+    }
+    return new DelegateDisposableFuture<>(output, Collections.singletonList(fanIn));
+  }
+
+  /**
+   * Owns the inputs of a fan-in combinator. Disposing it disposes every {@link Disposable} input (in reverse
+   * order), and it's flushable once every input is done (and flushable itself, if it holds disposables).
+   */
+  private static final class FanIn implements HasDisposables {
+
+    private static final AtomicIntegerFieldUpdater<FanIn> CANCELLED_REMAINING =
+        AtomicIntegerFieldUpdater.newUpdater(FanIn.class, "mCancelledRemaining");
+
+    private final ImmutableList<? extends ListenableFuture<?>> mInputs;
+    private volatile int mCancelledRemaining = 0;
+
+    FanIn(ImmutableList<? extends ListenableFuture<?>> inputs) {
+      mInputs = inputs;
+    }
+
+    /**
+     * Watch every input, and cancel the rest of them the first time one fails. This is the only
+     * mode that needs a listener per input, so it's opt-in.
+     */
+    void cancelRemainingOnFailure() {
+      for (final ListenableFuture<?> input : mInputs) {
+        input.addListener(new Runnable() {
+          @Override
+          public void run() {
+            if (isFailed(input)) {
+              cancelRemaining();
+            }
+          }
+        }, MoreExecutors.directExecutor());
+      }
+    }
+
+    private void cancelRemaining() {
+      if (!CANCELLED_REMAINING.compareAndSet(this, 0, 1)) {
+        return;
+      }
+      for (ListenableFuture<?> input : mInputs) {
+        input.cancel(false);
+      }
+    }
+
+    @Override
+    public boolean flushDisposed() {
+      for (ListenableFuture<?> input : mInputs) {
+        if (!input.isDone() || (input instanceof Disposable && !MaybeDisposables.isFlushable(input))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void dispose() {
+      MaybeDisposables.disposeList(new ArrayList<>(mInputs));
+    }
+
+    private static boolean isFailed(ListenableFuture<?> input) {
+      if (input.isCancelled()) {
+        return true;
+      }
+      try {
+        Futures.getDone(input);
+        return false;
+      } catch (ExecutionException e) {
+        return true;
+      }
+    }
+  }
+
+  private static class DelegateDisposableFuture<V> extends AbstractDelegateDisposable<List<Disposable>>
+      implements DisposableFuture<V>, ListenableDisposable, DisposeListener {
+
+    private static final int KEEP_RUNNING = 0;
+    private static final int CANCEL = 1;
+    private static final int CANCEL_AND_INTERRUPT = 2;
 
     private final ListenableFuture<V> mDelegate;
+    // what to do to mDelegate on dispose
+    volatile int mCancelMode = KEEP_RUNNING;
+    private boolean mIsSweepRegistered = false;
 
     DelegateDisposableFuture(ListenableFuture<V> delegate, @Nullable Collection<? extends Disposable> prefill) {
       super(prefill == null ? new LinkedList<Disposable>() : new LinkedList<Disposable>(prefill));
       mDelegate = delegate;
+      if (prefill != null) {
+        listenTo(prefill);
+      }
+    }
+
+    void cancelOnDispose(boolean mayInterruptIfRunning) {
+      mCancelMode = mayInterruptIfRunning ? CANCEL_AND_INTERRUPT : CANCEL;
     }
 
     void addDisposables(Collection<? extends Disposable> disposables) {
       synchronized (this) {
         getDelegateOrThrow().addAll(disposables);
       }
+      listenTo(disposables);
     }
 
+    /**
+     * Listeners are wrapped in single use runnables that remove themselves from our collection
+     * (via {@link #onDisposed(Disposable)}) as soon as they run, so we only hold on to listeners
+     * that are still pending. We also sweep out any fired listeners that slipped through once
+     * the delegate completes.
+     */
     @Override
     public void addListener(Runnable listener, Executor executor) {
       DisposableRunnable runnable = Disposables.singleUseRunnable(listener);
+      if (runnable instanceof ListenableDisposable) {
+        ((ListenableDisposable) runnable).addDisposeListener(this);
+      }
+      boolean registerSweep;
       synchronized (this) {
         getDelegateOrThrow().add(runnable);
-        mDelegate.addListener(runnable, executor);
+        registerSweep = !mIsSweepRegistered;
+        mIsSweepRegistered = true;
+      }
+      // a completed delegate runs the listener right away, so don't hold our monitor for it
+      mDelegate.addListener(runnable, executor);
+      if (registerSweep) {
+        mDelegate.addListener(new Runnable() {
+          @Override
+          public void run() {
+            releaseFiredListeners();
+          }
+        }, MoreExecutors.directExecutor());
+      }
+    }
+
+    private void releaseFiredListeners() {
+      synchronized (this) {
+        List<Disposable> disposables = getDelegateOrNull();
+        if (disposables == null) {
+          return;
+        }
+        for (Iterator<Disposable> iterator = disposables.iterator(); iterator.hasNext();) {
+          Disposable disposable = iterator.next();
+          if (disposable instanceof DisposableRunnable && ((DisposableRunnable) disposable).isDisposed()) {
+            iterator.remove();
+          }
+        }
       }
     }
 
@@ -163,23 +474,74 @@ public class DisposableFutures {
       if (isMarkedDisposed()) {
         return true;
       }
+      // our children may block, or call back into us, so they're checked outside of our monitor
+      List<Disposable> snapshot;
       synchronized (this) {
         List<Disposable> disposables = getDelegateOrNull();
         if (disposables == null) {
           return true;
         }
-        MaybeDisposables.flushList(disposables);
-        if (disposables.isEmpty()) {
-          markDisposed();
+        snapshot = new ArrayList<>(disposables);
+      }
+      Set<Object> flushed = MaybeDisposables.findFlushable(snapshot);
+      List<DisposeListener> listeners;
+      synchronized (this) {
+        List<Disposable> disposables = getDelegateOrNull();
+        if (disposables == null) {
           return true;
         }
+        MaybeDisposables.removeFlushed(disposables, flushed);
+        if (!disposables.isEmpty()) {
+          return false;
+        }
+        // our listeners (e.g. a manager that's flushing us) may take their own locks,
+        // so they're notified once we've left our monitor
+        listeners = markDisposedWithoutNotifying();
       }
-      return false;
+      notifyDisposeListeners(listeners);
+      return true;
     }
 
     @Override
     public void dispose() {
-      MaybeDisposables.disposeList(markDisposed());
+      List<Disposable> disposables = markDisposed();
+      if (disposables == null) {
+        return;
+      }
+
+      int cancelMode = mCancelMode;
+      if (cancelMode != KEEP_RUNNING) {
+        mDelegate.cancel(cancelMode == CANCEL_AND_INTERRUPT);
+      }
+      MaybeDisposables.disposeList(disposables);
+    }
+
+    @Override
+    public void addDisposeListener(DisposeListener listener) {
+      registerDisposeListener(listener);
+    }
+
+    @Override
+    public void removeDisposeListener(DisposeListener listener) {
+      unregisterDisposeListener(listener);
+    }
+
+    @Override
+    public void onDisposed(Disposable disposable) {
+      synchronized (this) {
+        List<Disposable> disposables = getDelegateOrNull();
+        if (disposables != null) {
+          disposables.remove(disposable);
+        }
+      }
+    }
+
+    private void listenTo(Collection<? extends Disposable> disposables) {
+      for (Disposable disposable : disposables) {
+        if (disposable instanceof ListenableDisposable) {
+          ((ListenableDisposable) disposable).addDisposeListener(this);
+        }
+      }
     }
 
     @Override
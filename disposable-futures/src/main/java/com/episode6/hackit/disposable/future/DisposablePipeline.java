@@ -0,0 +1,124 @@
+package com.episode6.hackit.disposable.future;
+
+import com.episode6.hackit.disposable.Disposable;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a chain of transforms into a single {@link DisposableFuture}. Create one via
+ * {@link DisposableFutures#pipeline(ListenableFuture)}.
+ *
+ * Chaining {@link DisposableFutures#transformAndWrap} nests a new DisposableFuture (holding the
+ * previous one) for every stage, so disposing / flushing a long chain recurses through all of them.
+ * A pipeline instead collects the source and every attached disposable into one flat list owned by
+ * the future returned from {@link #build()}, and adds nothing but the transform itself per stage
+ * (the builder is reused across stages). Cancelling the built future cancels the stage that's
+ * currently running, since each transform propagates cancellation to its input.
+ *
+ * Builders are not thread safe, and can only be built once.
+ */
+public final class DisposablePipeline<T> {
+
+  private ListenableFuture<?> mFuture;
+  private final List<Disposable> mRegistry = new ArrayList<>();
+  private boolean mCancelOnDispose;
+  private boolean mMayInterruptIfRunning;
+  private boolean mIsBuilt = false;
+
+  DisposablePipeline(ListenableFuture<T> source) {
+    mFuture = source;
+    if (source instanceof Disposable) {
+      mRegistry.add((Disposable) source);
+    }
+    Boolean mayInterruptIfRunning = DisposableFutures.getCancelOnDispose(source);
+    mCancelOnDispose = mayInterruptIfRunning != null;
+    mMayInterruptIfRunning = mayInterruptIfRunning != null && mayInterruptIfRunning;
+  }
+
+  /**
+   * Add a {@link Futures#transform} stage.
+   * @param transform The {@link Function} that transforms the previous stage's value
+   * @param executor The executor to execute the transformation on
+   * @param <O> The output type
+   * @return this pipeline
+   */
+  public <O> DisposablePipeline<O> transform(Function<? super T, ? extends O> transform, Executor executor) {
+    mFuture = Futures.transform(current(), transform, executor);
+    return cast();
+  }
+
+  /**
+   * Add a {@link Futures#transformAsync} stage.
+   * @param transform The {@link AsyncFunction} that transforms the previous stage's value
+   * @param executor The executor to execute the transformation on
+   * @param <O> The output type
+   * @return this pipeline
+   */
+  public <O> DisposablePipeline<O> transformAsync(AsyncFunction<? super T, ? extends O> transform, Executor executor) {
+    mFuture = Futures.transformAsync(current(), transform, executor);
+    return cast();
+  }
+
+  /**
+   * Attach disposables to be disposed / flushed along with the built future.
+   * @param disposables {@link Disposable}s to attach
+   * @return this pipeline
+   */
+  public DisposablePipeline<T> attach(Disposable... disposables) {
+    throwIfBuilt();
+    mRegistry.addAll(Arrays.asList(disposables));
+    return this;
+  }
+
+  /**
+   * Cancel the built future (and so the stage that's currently running) when it's disposed.
+   * Inherited from the source if it was created via {@link DisposableFutures#wrapCancelOnDispose}.
+   * @param mayInterruptIfRunning Passed to {@link java.util.concurrent.Future#cancel(boolean)} on dispose
+   * @return this pipeline
+   */
+  public DisposablePipeline<T> cancelOnDispose(boolean mayInterruptIfRunning) {
+    throwIfBuilt();
+    mCancelOnDispose = true;
+    mMayInterruptIfRunning = mayInterruptIfRunning;
+    return this;
+  }
+
+  /**
+   * @return A {@link DisposableFuture} for the final stage, holding every disposable in the pipeline.
+   */
+  public DisposableFuture<T> build() {
+    ListenableFuture<T> future = current();
+    mIsBuilt = true;
+    // with no stages, a DelegateDisposableFuture source is the future we're about to return, and
+    // must not hold itself (wrap() puts any other disposable source back at the front anyway)
+    mRegistry.remove(future);
+    Disposable[] disposables = mRegistry.toArray(new Disposable[mRegistry.size()]);
+    return mCancelOnDispose ?
+        DisposableFutures.wrapCancelOnDispose(future, mMayInterruptIfRunning, disposables) :
+        DisposableFutures.wrap(future, disposables);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ListenableFuture<T> current() {
+    throwIfBuilt();
+    return (ListenableFuture<T>) mFuture;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <O> DisposablePipeline<O> cast() {
+    return (DisposablePipeline<O>) this;
+  }
+
+  private void throwIfBuilt() {
+    if (mIsBuilt) {
+      throw new IllegalStateException("Attempted to reuse a pipeline after it's been built: " + toString());
+    }
+  }
+}
@@ -1,9 +1,15 @@
 package com.episode6.hackit.disposable.future;
 
+import com.episode6.hackit.disposable.AbstractDelegateDisposable;
 import com.episode6.hackit.disposable.CheckedDisposable;
 import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposableManager;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.Disposables;
 import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.*;
 import org.junit.Rule;
 import org.junit.Test;
@@ -12,7 +18,14 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.fail;
@@ -133,6 +146,271 @@ public class DisposableFuturesTest {
     assertThat(isDisposed).isTrue();
   }
 
+  @Test
+  public void testListenableDisposableRemovedEagerly() {
+    CheckedDisposable checkedDisposable = Disposables.checked(mDisposable);
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrap(mSettableFuture, checkedDisposable);
+
+    checkedDisposable.dispose();
+    boolean isDisposed = disposableFuture.flushDisposed();
+
+    verify(mDisposable).dispose();
+    verifyNoMoreInteractions(mDisposable);
+    assertThat(isDisposed).isTrue();
+  }
+
+  @Test
+  public void testFiredListenersReleased() throws NoSuchFieldException, IllegalAccessException {
+    CapturingExecutor executor = new CapturingExecutor();
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrap(mSettableFuture);
+    Futures.addCallback(disposableFuture, mFutureCallback, executor);
+    Futures.addCallback(disposableFuture, mFutureCallback, MoreExecutors.directExecutor());
+
+    assertThat(getInternalList(disposableFuture)).hasSize(2);
+
+    mSettableFuture.set(true);
+
+    // the direct listener has fired, the other is still waiting on its executor
+    assertThat(getInternalList(disposableFuture)).hasSize(1);
+
+    executor.runAll();
+
+    assertThat(getInternalList(disposableFuture)).isEmpty();
+    verify(mFutureCallback, times(2)).onSuccess(true);
+  }
+
+  @Test
+  public void testManyFiredListenersReleased() throws NoSuchFieldException, IllegalAccessException {
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.immediateFuture(true);
+
+    for (int i = 0; i < 1000; i++) {
+      disposableFuture.addListener(mock(Runnable.class), MoreExecutors.directExecutor());
+    }
+
+    assertThat(getInternalList(disposableFuture)).isEmpty();
+  }
+
+  @Test
+  public void testDisposeDoesNotCancelByDefault() {
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrap(mSettableFuture);
+
+    disposableFuture.dispose();
+
+    assertThat(mSettableFuture.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testCancelOnDispose() {
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrapCancelOnDispose(mSettableFuture, false, mDisposable);
+
+    disposableFuture.dispose();
+
+    assertThat(mSettableFuture.isCancelled()).isTrue();
+    assertThat(disposableFuture.isCancelled()).isTrue();
+    verify(mDisposable).dispose();
+  }
+
+  @Test
+  public void testCancelOnDisposeMayInterrupt() {
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrapCancelOnDispose(mMockDisposableFuture, true);
+
+    disposableFuture.dispose();
+    disposableFuture.dispose();
+
+    verify(mMockDisposableFuture).cancel(true);
+    verify(mMockDisposableFuture).dispose();
+    verifyNoMoreInteractions(mMockDisposableFuture);
+  }
+
+  @Test
+  public void testCancelOnDisposePropagatesThroughTransforms() throws Exception {
+    SettableFuture<Integer> innerFuture = SettableFuture.create();
+    when(mAsyncFunction.apply(any())).thenReturn(innerFuture);
+    DisposableFuture<Boolean> input = DisposableFutures.wrapCancelOnDispose(mSettableFuture, false);
+    DisposableFuture<Integer> transformed = DisposableFutures.transformAndWrap(input, transformFunction(), MoreExecutors.directExecutor());
+    DisposableFuture<Integer> output = DisposableFutures.transformAsyncAndWrap(transformed, mAsyncFunction, MoreExecutors.directExecutor());
+    mSettableFuture.set(true);
+
+    output.dispose();
+
+    assertThat(output.isCancelled()).isTrue();
+    assertThat(innerFuture.isCancelled()).isTrue();
+    assertThat(transformed.isDone()).isTrue();
+    assertThat(transformed.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testCancelOnDisposePropagatesToPendingInput() {
+    DisposableFuture<Boolean> input = DisposableFutures.wrapCancelOnDispose(mSettableFuture, false);
+    DisposableFuture<Integer> output = DisposableFutures.transformAndWrap(input, mFunction, MoreExecutors.directExecutor());
+
+    output.dispose();
+    mSettableFuture.set(true);
+
+    assertThat(output.isCancelled()).isTrue();
+    assertThat(mSettableFuture.isCancelled()).isTrue();
+    verifyZeroInteractions(mFunction);
+  }
+
+  @Test
+  public void testAllAsList() throws Exception {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.allAsList(mSettableFuture, otherFuture);
+
+    mSettableFuture.set(true);
+    otherFuture.set(false);
+
+    assertThat(combined.get()).containsExactly(true, false);
+    assertThat(combined.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testFanInDisposeCascades() {
+    DisposableFuture<Boolean> input1 = DisposableFutures.wrap(mSettableFuture, mDisposable);
+    DisposableFuture<Boolean> input2 = DisposableFutures.wrap(SettableFuture.<Boolean>create(), mCheckedDisposable);
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.successfulAsList(input1, input2);
+
+    combined.dispose();
+
+    verify(mDisposable).dispose();
+    verify(mCheckedDisposable).dispose();
+    assertThat(mSettableFuture.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testFanInNotFlushableWhileInputsPending() throws NoSuchFieldException, IllegalAccessException {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.allAsList(
+        mSettableFuture,
+        DisposableFutures.wrap(otherFuture, mCheckedDisposable));
+
+    mSettableFuture.setException(new RuntimeException());
+
+    assertThat(combined.isDone()).isTrue();
+    assertThat(combined.flushDisposed()).isFalse();
+    assertThat(getInternalList(combined)).hasSize(1);
+
+    otherFuture.set(true);
+    when(mCheckedDisposable.isDisposed()).thenReturn(true);
+
+    assertThat(combined.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testAllAsListKeepsRemainingByDefault() {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.allAsList(mSettableFuture, otherFuture);
+
+    mSettableFuture.setException(new RuntimeException());
+
+    assertThat(combined.isDone()).isTrue();
+    assertThat(otherFuture.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testAllAsListCancelRemainingOnFailure() throws InterruptedException {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    RuntimeException failure = new RuntimeException();
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.allAsList(
+        ImmutableList.of(mSettableFuture, otherFuture),
+        true);
+
+    mSettableFuture.setException(failure);
+
+    assertThat(otherFuture.isCancelled()).isTrue();
+    try {
+      combined.get();
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+    }
+  }
+
+  @Test
+  public void testSuccessfulAsListCancelRemainingOnFailure() throws Exception {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    SettableFuture<Boolean> doneFuture = SettableFuture.create();
+    DisposableFuture<List<Boolean>> combined = DisposableFutures.successfulAsList(
+        ImmutableList.of(doneFuture, mSettableFuture, otherFuture),
+        true);
+    doneFuture.set(true);
+
+    mSettableFuture.setException(new RuntimeException());
+
+    assertThat(otherFuture.isCancelled()).isTrue();
+    assertThat(combined.get()).containsExactly(true, null, null);
+  }
+
+  @Test
+  public void testWhenAllComplete() throws Exception {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    Callable<String> combiner = new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        return "combined";
+      }
+    };
+    DisposableFuture<String> combined = DisposableFutures.whenAllComplete(
+        combiner,
+        MoreExecutors.directExecutor(),
+        DisposableFutures.wrap(mSettableFuture, mDisposable),
+        otherFuture);
+
+    mSettableFuture.set(true);
+
+    assertThat(combined.isDone()).isFalse();
+
+    otherFuture.setException(new RuntimeException());
+
+    assertThat(combined.get()).isEqualTo("combined");
+  }
+
+  @Test
+  public void testWhenAllCompleteCancelRemainingOnFailure() {
+    SettableFuture<Boolean> otherFuture = SettableFuture.create();
+    Callable<Void> combiner = new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        return null;
+      }
+    };
+    DisposableFuture<Void> combined = DisposableFutures.whenAllComplete(
+        ImmutableList.of(mSettableFuture, otherFuture),
+        combiner,
+        MoreExecutors.directExecutor(),
+        true);
+
+    mSettableFuture.cancel(false);
+
+    assertThat(otherFuture.isCancelled()).isTrue();
+    assertThat(combined.isDone()).isTrue();
+  }
+
+  @Test
+  public void testDisposeNotifiesListener() {
+    DisposeListener disposeListener = mock(DisposeListener.class);
+    DisposableFuture<Boolean> disposableFuture = DisposableFutures.wrap(mSettableFuture);
+    ((ListenableDisposable) disposableFuture).addDisposeListener(disposeListener);
+
+    disposableFuture.dispose();
+
+    verify(disposeListener).onDisposed(disposableFuture);
+    verifyNoMoreInteractions(disposeListener);
+  }
+
+  @Test
+  public void testTransformedInputRemovedOnFlush() {
+    DisposableFuture<Boolean> input = DisposableFutures.wrap(mSettableFuture);
+    DisposableFuture<Boolean> output = DisposableFutures.transformAndWrap(input, mFunction, MoreExecutors.directExecutor());
+
+    mSettableFuture.set(true);
+    boolean isInputDisposed = input.flushDisposed();
+    boolean isOutputDisposed = output.flushDisposed();
+
+    assertThat(isInputDisposed).isTrue();
+    assertThat(isOutputDisposed).isTrue();
+  }
+
   @Test
   public void testWrapNonStandardDisposableFutureFlush() {
     when(mCheckedDisposable.isDisposed()).thenReturn(true);
@@ -296,6 +574,51 @@ public class DisposableFuturesTest {
     verifyNoMoreInteractions(mFunction);
   }
 
+  @Test
+  public void testFlushRacingManagerFlush() throws InterruptedException {
+    final DisposableManager manager = Disposables.newManager();
+    final Thread managerFlusher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        manager.flushDisposed();
+      }
+    });
+    managerFlusher.setDaemon(true);
+    final AtomicBoolean firstCheck = new AtomicBoolean(true);
+    // the future's flush finds this child disposed, but only once the manager's flush is
+    // waiting on the future
+    final DisposableFuture<Boolean> future = DisposableFutures.wrap(mSettableFuture, new CheckedDisposable() {
+      @Override
+      public boolean isDisposed() {
+        if (firstCheck.getAndSet(false)) {
+          managerFlusher.start();
+          awaitBlocked(managerFlusher);
+        }
+        return true;
+      }
+
+      @Override
+      public void dispose() {}
+    });
+    manager.addDisposable(future);
+    Thread futureFlusher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        future.flushDisposed();
+      }
+    });
+    futureFlusher.setDaemon(true);
+
+    futureFlusher.start();
+    futureFlusher.join(2000);
+    managerFlusher.join(2000);
+
+    assertThat(futureFlusher.isAlive()).isFalse();
+    assertThat(managerFlusher.isAlive()).isFalse();
+    assertThat(future.flushDisposed()).isTrue();
+    assertThat(manager.flushDisposed()).isFalse();
+  }
+
   interface ThrowRunnable {
     void run() throws Throwable;
   }
@@ -312,6 +635,13 @@ public class DisposableFuturesTest {
     fail("Expected throwable: " + clazz);
   }
 
+  private static void awaitBlocked(Thread thread) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (thread.getState() != Thread.State.BLOCKED && thread.isAlive() && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+  }
+
   private static Function<Boolean, Integer> transformFunction() {
     return new Function<Boolean, Integer>() {
       @Nullable
@@ -344,4 +674,29 @@ public class DisposableFuturesTest {
       }
     };
   }
+
+  @SuppressWarnings("unchecked")
+  private static List<Disposable> getInternalList(DisposableFuture<?> disposableFuture)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field listField = AbstractDelegateDisposable.class.getDeclaredField("mDelegate");
+    listField.setAccessible(true);
+    return (List<Disposable>) listField.get(disposableFuture);
+  }
+
+  private static class CapturingExecutor implements Executor {
+    final List<Runnable> mRunnables = new LinkedList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      mRunnables.add(command);
+    }
+
+    void runAll() {
+      List<Runnable> runnables = new LinkedList<>(mRunnables);
+      mRunnables.clear();
+      for (Runnable runnable : runnables) {
+        runnable.run();
+      }
+    }
+  }
 }
@@ -0,0 +1,173 @@
+package com.episode6.hackit.disposable.future;
+
+import com.episode6.hackit.disposable.AbstractDelegateDisposable;
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link DisposablePipeline}
+ */
+public class DisposablePipelineTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Disposable mDisposable;
+  @Mock CheckedDisposable mCheckedDisposable;
+
+  final SettableFuture<Integer> mSource = SettableFuture.create();
+
+  @Test
+  public void testTransforms() throws Exception {
+    DisposableFuture<String> future = DisposableFutures.pipeline(mSource)
+        .transform(increment(), MoreExecutors.directExecutor())
+        .transformAsync(new AsyncFunction<Integer, Integer>() {
+          @Override
+          public ListenableFuture<Integer> apply(@Nullable Integer input) {
+            return Futures.immediateFuture(input * 2);
+          }
+        }, MoreExecutors.directExecutor())
+        .transform(new Function<Integer, String>() {
+          @Override
+          public String apply(@Nullable Integer input) {
+            return String.valueOf(input);
+          }
+        }, MoreExecutors.directExecutor())
+        .build();
+
+    mSource.set(1);
+
+    assertThat(future.get()).isEqualTo("4");
+  }
+
+  @Test
+  public void testRegistryIsFlat() throws Exception {
+    DisposableFuture<Integer> source = DisposableFutures.wrap(mSource, mDisposable);
+    DisposablePipeline<Integer> pipeline = DisposableFutures.pipeline(source);
+    for (int i = 0; i < 20; i++) {
+      pipeline = pipeline.transform(increment(), MoreExecutors.directExecutor()).attach(mCheckedDisposable);
+    }
+
+    DisposableFuture<Integer> future = pipeline.build();
+
+    List<Disposable> registry = getInternalList(future);
+    assertThat(registry).hasSize(21);
+    assertThat(registry.get(0)).isSameAs(source);
+  }
+
+  @Test
+  public void testDisposeDisposesEverything() {
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(DisposableFutures.wrap(mSource, mDisposable))
+        .transform(increment(), MoreExecutors.directExecutor())
+        .attach(mCheckedDisposable)
+        .transform(increment(), MoreExecutors.directExecutor())
+        .build();
+
+    future.dispose();
+
+    verify(mDisposable).dispose();
+    verify(mCheckedDisposable).dispose();
+    assertThat(future.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testFlushAfterComplete() {
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(DisposableFutures.wrap(mSource))
+        .transform(increment(), MoreExecutors.directExecutor())
+        .build();
+    mSource.set(1);
+
+    assertThat(future.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testZeroStages() throws Exception {
+    DisposableFuture<Integer> source = DisposableFutures.wrap(mSource, mDisposable);
+
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(source)
+        .attach(mCheckedDisposable)
+        .build();
+
+    assertThat(future).isSameAs(source);
+    assertThat(getInternalList(future)).containsExactly(mDisposable, mCheckedDisposable);
+  }
+
+  @Test
+  public void testFlushAfterCompleteWithZeroStages() {
+    when(mCheckedDisposable.isDisposed()).thenReturn(true);
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(DisposableFutures.wrap(mSource))
+        .attach(mCheckedDisposable)
+        .build();
+    mSource.set(1);
+
+    assertThat(future.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testCancelOnDispose() {
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(mSource)
+        .transform(increment(), MoreExecutors.directExecutor())
+        .transform(increment(), MoreExecutors.directExecutor())
+        .cancelOnDispose(false)
+        .build();
+
+    future.dispose();
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(mSource.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void testInheritsCancelOnDispose() {
+    DisposableFuture<Integer> future = DisposableFutures.pipeline(DisposableFutures.wrapCancelOnDispose(mSource, false))
+        .transform(increment(), MoreExecutors.directExecutor())
+        .build();
+
+    future.dispose();
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(mSource.isCancelled()).isTrue();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testThrowAfterBuild() {
+    DisposablePipeline<Integer> pipeline = DisposableFutures.pipeline(mSource);
+    pipeline.build();
+
+    pipeline.transform(increment(), MoreExecutors.directExecutor());
+  }
+
+  private static Function<Integer, Integer> increment() {
+    return new Function<Integer, Integer>() {
+      @Override
+      public Integer apply(@Nullable Integer input) {
+        return input + 1;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Disposable> getInternalList(DisposableFuture<?> disposableFuture)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field listField = AbstractDelegateDisposable.class.getDeclaredField("mDelegate");
+    listField.setAccessible(true);
+    return (List<Disposable>) listField.get(disposableFuture);
+  }
+}
@@ -1,16 +1,27 @@
 package com.episode6.hackit.disposable;
 
 import javax.annotation.Nullable;
+import java.util.LinkedList;
+import java.util.List;
 
 /**
  * An abstract implementation of {@link Disposable}.
  * Takes a delegate object type V and stores a strong reference to it until {@link #markDisposed()}
  * is called. It's the subclasser's responsibility to implement {@link #dispose()} and call {@link #markDisposed()}
+ *
+ * Subclasses that implement {@link ListenableDisposable} can pass their listener methods through to
+ * {@link #registerDisposeListener(DisposeListener)} and {@link #unregisterDisposeListener(DisposeListener)}.
+ * Registered listeners are notified (outside of our lock) the first time {@link #markDisposed()} is called.
+ *
+ * Our lock is this object's monitor (subclasses synchronize on it too). It's only ever held to read or
+ * swap our own fields, never while calling into delegates, children or listeners, so it can't pin a
+ * virtual thread for longer than that.
  */
 public abstract class AbstractDelegateDisposable<V> implements Disposable {
 
   private transient volatile boolean mIsDisposed;
   private @Nullable V mDelegate;
+  private @Nullable List<DisposeListener> mDisposeListeners;
 
   public AbstractDelegateDisposable(V delegate) {
     mIsDisposed = false;
@@ -69,19 +80,101 @@ public abstract class AbstractDelegateDisposable<V> implements Disposable {
    *
    * @return The delegate or null if we've already been disposed.
    */
-   protected final @Nullable V markDisposed() {
+  protected final @Nullable V markDisposed() {
     if (mIsDisposed) {
       return null;
     }
 
+    final V instance;
+    final List<DisposeListener> listeners;
     synchronized (this) {
       if (mIsDisposed) {
         return null;
       }
       mIsDisposed = true;
-      final V instance = mDelegate;
+      instance = mDelegate;
+      listeners = mDisposeListeners;
       mDelegate = null;
-      return instance;
+      mDisposeListeners = null;
+    }
+
+    notifyDisposeListeners(listeners);
+    return instance;
+  }
+
+  /**
+   * For use by subclasses that need to mark this object as disposed while they're synchronized
+   * on it (e.g. to check that their delegate is empty first). Works like {@link #markDisposed()}
+   * (dropping the delegate) but doesn't notify our listeners, since they may take locks of their
+   * own. Pass the result to {@link #notifyDisposeListeners(List)} once the lock is released.
+   * @return The listeners to notify, or null if there are none (or we were already disposed)
+   */
+  protected final @Nullable List<DisposeListener> markDisposedWithoutNotifying() {
+    if (mIsDisposed) {
+      return null;
+    }
+
+    synchronized (this) {
+      if (mIsDisposed) {
+        return null;
+      }
+      mIsDisposed = true;
+      mDelegate = null;
+      List<DisposeListener> listeners = mDisposeListeners;
+      mDisposeListeners = null;
+      return listeners;
+    }
+  }
+
+  /**
+   * For use by subclasses - notify the listeners returned by {@link #markDisposedWithoutNotifying()}.
+   * Must not be called while synchronized on this object.
+   * @param listeners The listeners to notify (may be null)
+   */
+  protected final void notifyDisposeListeners(@Nullable List<DisposeListener> listeners) {
+    if (listeners == null) {
+      return;
+    }
+    for (DisposeListener listener : listeners) {
+      listener.onDisposed(this);
+    }
+  }
+
+  /**
+   * For use by subclasses that implement {@link ListenableDisposable} - register a listener
+   * to be notified the first time {@link #markDisposed()} is called. If this object has already
+   * been marked disposed, the listener is notified immediately.
+   * @param listener The {@link DisposeListener} to register
+   */
+  protected final void registerDisposeListener(DisposeListener listener) {
+    if (!mIsDisposed) {
+      synchronized (this) {
+        if (!mIsDisposed) {
+          if (mDisposeListeners == null) {
+            mDisposeListeners = new LinkedList<DisposeListener>();
+          }
+          mDisposeListeners.add(listener);
+          return;
+        }
+      }
+    }
+    listener.onDisposed(this);
+  }
+
+  /**
+   * For use by subclasses that implement {@link ListenableDisposable} - unregister a listener
+   * previously registered via {@link #registerDisposeListener(DisposeListener)}
+   * @param listener The {@link DisposeListener} to unregister
+   */
+  protected final void unregisterDisposeListener(DisposeListener listener) {
+    if (mIsDisposed) {
+      return;
+    }
+
+    synchronized (this) {
+      if (mDisposeListeners != null) {
+        mDisposeListeners.remove(listener);
+      }
     }
   }
 }
@@ -2,10 +2,12 @@ package com.episode6.hackit.disposable;
 
 import javax.annotation.Nullable;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Utility class containing static methods to create Disposables.
@@ -91,7 +93,7 @@ public class Disposables {
     }
   }
 
-  private static class SingleUseRunnable extends AbstractDelegateDisposable<Runnable> implements DisposableRunnable {
+  private static class SingleUseRunnable extends AbstractDelegateDisposable<Runnable> implements DisposableRunnable, ListenableDisposable {
 
     SingleUseRunnable(Runnable delegate) {
       super(delegate);
@@ -114,12 +116,27 @@ public class Disposables {
     public boolean isDisposed() {
       return getDelegateOrNull() == null;
     }
+
+    @Override
+    public void addDisposeListener(DisposeListener listener) {
+      registerDisposeListener(listener);
+    }
+
+    @Override
+    public void removeDisposeListener(DisposeListener listener) {
+      unregisterDisposeListener(listener);
+    }
   }
 
-  private static class BasicDisposableManager extends AbstractDelegateDisposable<List<Disposable>> implements DisposableManager {
+  private static class BasicDisposableManager extends AbstractDelegateDisposable<List<Disposable>> implements DisposableManager, DisposeListener {
 
     BasicDisposableManager(@Nullable Collection<Disposable> prefill) {
       super(prefill == null ? new LinkedList<Disposable>() : new LinkedList<Disposable>(prefill));
+      if (prefill != null) {
+        for (Disposable disposable : prefill) {
+          listenTo(disposable);
+        }
+      }
     }
 
     @Override
@@ -127,6 +144,7 @@ public class Disposables {
       synchronized (this) {
         getDelegateOrThrow().add(disposable);
       }
+      listenTo(disposable);
     }
 
     @Override
@@ -135,8 +153,18 @@ public class Disposables {
         return true;
       }
 
+      // children may block, or call back into us, so they're checked outside of our monitor
+      List<Disposable> snapshot;
+      synchronized (this) {
+        List<Disposable> disposables = getDelegateOrNull();
+        if (disposables == null) {
+          return true;
+        }
+        snapshot = new ArrayList<>(disposables);
+      }
+      Set<Object> flushed = MaybeDisposables.findFlushable(snapshot);
       synchronized (this) {
-        MaybeDisposables.flushList(getDelegateOrNull());
+        MaybeDisposables.removeFlushed(getDelegateOrNull(), flushed);
         return isMarkedDisposed();
       }
     }
@@ -145,9 +173,25 @@ public class Disposables {
     public void dispose() {
       MaybeDisposables.disposeList(markDisposed());
     }
+
+    @Override
+    public void onDisposed(Disposable disposable) {
+      synchronized (this) {
+        List<Disposable> disposables = getDelegateOrNull();
+        if (disposables != null) {
+          disposables.remove(disposable);
+        }
+      }
+    }
+
+    private void listenTo(Disposable disposable) {
+      if (disposable instanceof ListenableDisposable) {
+        ((ListenableDisposable) disposable).addDisposeListener(this);
+      }
+    }
   }
 
-  private static class SimpleCheckedDisposable extends AbstractDelegateDisposable<Disposable> implements CheckedDisposable {
+  private static class SimpleCheckedDisposable extends AbstractDelegateDisposable<Disposable> implements CheckedDisposable, ListenableDisposable {
 
     public SimpleCheckedDisposable(Disposable delegate) {
       super(delegate);
@@ -162,5 +206,15 @@ public class Disposables {
     public boolean isDisposed() {
       return MaybeDisposables.isDisposed(getDelegateOrNull());
     }
+
+    @Override
+    public void addDisposeListener(DisposeListener listener) {
+      registerDisposeListener(listener);
+    }
+
+    @Override
+    public void removeDisposeListener(DisposeListener listener) {
+      unregisterDisposeListener(listener);
+    }
   }
  }
@@ -0,0 +1,14 @@
+package com.episode6.hackit.disposable;
+
+/**
+ * A listener that is notified when a {@link ListenableDisposable} is disposed.
+ */
+public interface DisposeListener {
+
+  /**
+   * Called (at most once per registration) when the disposable this listener
+   * was registered with has been disposed.
+   * @param disposable The disposable that was disposed
+   */
+  void onDisposed(Disposable disposable);
+}
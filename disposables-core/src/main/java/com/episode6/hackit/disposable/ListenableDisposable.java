@@ -0,0 +1,22 @@
+package com.episode6.hackit.disposable;
+
+/**
+ * A type of {@link Disposable} that can notify {@link DisposeListener}s the moment it is disposed.
+ * Managers that hold a ListenableDisposable will register themselves as listeners so that
+ * they can release it eagerly instead of waiting to discover its status during a flush.
+ */
+public interface ListenableDisposable extends Disposable {
+
+  /**
+   * Register a listener to be notified when this object is disposed. If this object
+   * has already been disposed, the listener will be notified immediately.
+   * @param listener The {@link DisposeListener} to register
+   */
+  void addDisposeListener(DisposeListener listener);
+
+  /**
+   * Unregister a listener previously added via {@link #addDisposeListener(DisposeListener)}
+   * @param listener The {@link DisposeListener} to unregister
+   */
+  void removeDisposeListener(DisposeListener listener);
+}
@@ -1,15 +1,22 @@
 package com.episode6.hackit.disposable;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
 /**
  * Utility methods for dealing with objects that might be disposable.
  */
 public class MaybeDisposables {
 
+  // Throwable.addSuppressed is missing on Android below API 19
+  private static final boolean SUPPORTS_SUPPRESSED = supportsSuppressed();
+
   public static void dispose(@Nullable Object maybeDisposable) {
     if (maybeDisposable == null) {
       return;
@@ -29,15 +36,42 @@ public class MaybeDisposables {
     }
   }
 
+  /**
+   * Dispose every item in the supplied list (in reverse order) then clear the list. If any
+   * item throws while being disposed, the remaining items are still disposed and the list is
+   * still cleared. The first exception is then rethrown with any subsequent (distinct) ones
+   * attached to it as suppressed exceptions. Suppressed exceptions are only attached where the
+   * runtime supports them (i.e. not on Android below API 19), otherwise they're dropped.
+   * @param list The list of objects to dispose
+   */
   public static void disposeList(@Nullable List list) {
     if (list == null || list.isEmpty()) {
       return;
     }
 
-    for (ListIterator iterator = list.listIterator(list.size()); iterator.hasPrevious();) {
-      dispose(iterator.previous());
+    Throwable failure = null;
+    try {
+      for (ListIterator iterator = list.listIterator(list.size()); iterator.hasPrevious();) {
+        try {
+          dispose(iterator.previous());
+        } catch (RuntimeException | Error e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            addSuppressed(failure, e);
+          }
+        }
+      }
+    } finally {
+      list.clear();
+    }
+
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure != null) {
+      throw (Error) failure;
     }
-    list.clear();
   }
 
   public static boolean isDisposed(@Nullable Object maybeDisposed) {
@@ -70,6 +104,63 @@ public class MaybeDisposables {
     }
   }
 
+  /**
+   * Find the items of a lock-guarded list that can be flushed, for owners that mustn't call into
+   * their items while holding that lock (items may block, or call back into their owner). Pass a
+   * copy of the list taken under the lock, then hand the result to
+   * {@link #removeFlushed(List, Set)} once the lock is held again.
+   * @param copy A snapshot of the list to check
+   * @return The flushable items of copy, compared by identity
+   */
+  public static Set<Object> findFlushable(Collection<?> copy) {
+    Set<Object> flushable = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    for (Object item : copy) {
+      if (isFlushable(item)) {
+        flushable.add(item);
+      }
+    }
+    return flushable;
+  }
+
+  /**
+   * Remove the items found by {@link #findFlushable(Collection)} from list.
+   * @param list The list to remove from
+   * @param flushed The items to remove (by identity)
+   */
+  public static void removeFlushed(@Nullable List list, Set<Object> flushed) {
+    if (list == null || flushed.isEmpty()) {
+      return;
+    }
+
+    for (Iterator iterator = list.iterator(); iterator.hasNext();) {
+      if (flushed.contains(iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Attach suppressed to failure as a suppressed exception, if the runtime supports them (i.e. not
+   * on Android below API 19), otherwise suppressed is dropped. Also a no-op if they're the same
+   * exception, since self-suppression throws.
+   * @param failure The exception being thrown
+   * @param suppressed The exception to attach to it
+   */
+  public static void addSuppressed(Throwable failure, Throwable suppressed) {
+    if (suppressed != failure && SUPPORTS_SUPPRESSED) {
+      failure.addSuppressed(suppressed);
+    }
+  }
+
+  private static boolean supportsSuppressed() {
+    try {
+      Throwable.class.getMethod("addSuppressed", Throwable.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
   private static boolean isCheckedDisposable(Object object) {
     return object instanceof CheckedDisposable;
   }
@@ -1,13 +1,20 @@
 package com.episode6.hackit.disposable;
 
 import javax.annotation.Nullable;
+import java.util.LinkedList;
+import java.util.List;
 
 /**
  * An implementation of {@link CheckedDisposable} where you can {@link #set(Disposable)} the disposable delegate
  * after-the-fact. If this object is already disposed by the time {@link #set(Disposable)} is called, then dispose()
  * will be called immediately on the provided Disposable.
+ *
+ * If the provided Disposable is a {@link ListenableDisposable}, this object will dispose itself (and notify its own
+ * {@link DisposeListener}s) as soon as the provided Disposable is disposed.
+ *
+ * Our monitor only guards our own state, the delegate is always disposed / checked outside of it.
  */
-public class SettableDisposable implements CheckedDisposable {
+public class SettableDisposable implements CheckedDisposable, ListenableDisposable {
 
   public static SettableDisposable create() {
     return new SettableDisposable();
@@ -16,20 +23,31 @@ public class SettableDisposable implements CheckedDisposable {
   private transient volatile boolean mIsDisposed = false;
   private boolean mIsSet = false;
   private @Nullable Disposable mDisposable;
+  private @Nullable List<DisposeListener> mDisposeListeners;
 
   public void set(Disposable disposable) {
+    final boolean isDisposed;
     synchronized (this) {
       if (mIsSet) {
         throw new IllegalStateException("Tried to set SettableDisposable that is already set.");
       }
       mIsSet = true;
-
-      if (mIsDisposed) {
-        disposable.dispose();
-      } else {
+      isDisposed = mIsDisposed;
+      if (!isDisposed) {
         mDisposable = disposable;
       }
     }
+
+    if (isDisposed) {
+      disposable.dispose();
+    } else if (disposable instanceof ListenableDisposable) {
+      ((ListenableDisposable) disposable).addDisposeListener(new DisposeListener() {
+        @Override
+        public void onDisposed(Disposable disposable) {
+          dispose();
+        }
+      });
+    }
   }
 
   @Override
@@ -38,15 +56,26 @@ public class SettableDisposable implements CheckedDisposable {
       return;
     }
 
+    final Disposable disposable;
+    final List<DisposeListener> listeners;
     synchronized (this) {
       if (mIsDisposed) {
         return;
       }
       mIsDisposed = true;
-      if (mIsSet) {
-        Disposable disposable = mDisposable;
-        mDisposable = null;
-        MaybeDisposables.dispose(disposable);
+      disposable = mDisposable;
+      listeners = mDisposeListeners;
+      mDisposable = null;
+      mDisposeListeners = null;
+    }
+
+    try {
+      MaybeDisposables.dispose(disposable);
+    } finally {
+      if (listeners != null) {
+        for (DisposeListener listener : listeners) {
+          listener.onDisposed(this);
+        }
       }
     }
   }
@@ -57,11 +86,45 @@ public class SettableDisposable implements CheckedDisposable {
       return true;
     }
 
+    final Disposable disposable;
     synchronized (this) {
       if (mIsDisposed) {
         return true;
       }
-      return mIsSet && MaybeDisposables.isFlushable(mDisposable);
+      if (!mIsSet) {
+        return false;
+      }
+      disposable = mDisposable;
+    }
+    return MaybeDisposables.isFlushable(disposable);
+  }
+
+  @Override
+  public void addDisposeListener(DisposeListener listener) {
+    if (!mIsDisposed) {
+      synchronized (this) {
+        if (!mIsDisposed) {
+          if (mDisposeListeners == null) {
+            mDisposeListeners = new LinkedList<DisposeListener>();
+          }
+          mDisposeListeners.add(listener);
+          return;
+        }
+      }
+    }
+    listener.onDisposed(this);
+  }
+
+  @Override
+  public void removeDisposeListener(DisposeListener listener) {
+    if (mIsDisposed) {
+      return;
+    }
+
+    synchronized (this) {
+      if (mDisposeListeners != null) {
+        mDisposeListeners.remove(listener);
+      }
     }
   }
 }
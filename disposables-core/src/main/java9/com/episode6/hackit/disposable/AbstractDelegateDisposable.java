@@ -0,0 +1,192 @@
+package com.episode6.hackit.disposable;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An abstract implementation of {@link Disposable}.
+ * Takes a delegate object type V and stores a strong reference to it until {@link #markDisposed()}
+ * is called. It's the subclasser's responsibility to implement {@link #dispose()} and call {@link #markDisposed()}
+ *
+ * Subclasses that implement {@link ListenableDisposable} can pass their listener methods through to
+ * {@link #registerDisposeListener(DisposeListener)} and {@link #unregisterDisposeListener(DisposeListener)}.
+ * Registered listeners are notified (outside of our lock) the first time {@link #markDisposed()} is called.
+ *
+ * Java 9+ version: mIsDisposed and mDelegate are accessed through {@link VarHandle}s using acquire/release
+ * ordering, so reads of the delegate no longer need to enter our monitor. {@link #markDisposed()} still
+ * synchronizes on this object, since subclasses rely on it being mutually exclusive with their own
+ * synchronized blocks. As in the Java 7 version, that monitor is never held while calling out.
+ */
+public abstract class AbstractDelegateDisposable<V> implements Disposable {
+
+  private static final VarHandle IS_DISPOSED;
+  private static final VarHandle DELEGATE;
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      IS_DISPOSED = lookup.findVarHandle(AbstractDelegateDisposable.class, "mIsDisposed", boolean.class);
+      DELEGATE = lookup.findVarHandle(AbstractDelegateDisposable.class, "mDelegate", Object.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private transient boolean mIsDisposed;
+  private @Nullable Object mDelegate;
+  private @Nullable List<DisposeListener> mDisposeListeners;
+
+  public AbstractDelegateDisposable(V delegate) {
+    DELEGATE.setRelease(this, delegate);
+  }
+
+  /**
+   * For use by subclasses - provides an unsyncronized (acquire) read of our
+   * mIsDisposed boolean. Useful for fast returns at the top of methods when you
+   * want to no-op if disposed.
+   * @return true if mIsDisposed is true, false otherwise
+   */
+  protected final boolean isMarkedDisposed() {
+    return (boolean) IS_DISPOSED.getAcquire(this);
+  }
+
+  /**
+   * For use by subclasses - get an instance of the delegate without
+   * marking this object as disposed.
+   * @return The delegate or null if we've already been disposed.
+   */
+  @SuppressWarnings("unchecked")
+  protected final @Nullable V getDelegateOrNull() {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return null;
+    }
+
+    // mDelegate is only nulled after mIsDisposed is set, so a concurrent markDisposed()
+    // can only cause us to read null here, which callers already treat as disposed
+    return (V) DELEGATE.getAcquire(this);
+  }
+
+  /**
+   * For use by subclasses - get an instance of the delegate without
+   * marking this object as disposed, or throw an IllegalStateException
+   * if the object has already been disposed.
+   * @return The delegate or null if we've already been disposed.
+   */
+  protected final V getDelegateOrThrow() {
+    final V delegate = getDelegateOrNull();
+    if (delegate == null) {
+      throw new IllegalStateException(
+          "Attempted to interact with disposable after it's been disposed: " + toString());
+    }
+    return delegate;
+  }
+
+  /**
+   * For use by subclasses - mark this object as disposed and return an
+   * instance of the delegate. All subsequent calls to {@link #markDisposed()}
+   * and {@link #getDelegateOrNull()} will return null after this method has been
+   * called once.
+   *
+   * @return The delegate or null if we've already been disposed.
+   */
+  @SuppressWarnings("unchecked")
+  protected final @Nullable V markDisposed() {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return null;
+    }
+
+    final V instance;
+    final List<DisposeListener> listeners;
+    synchronized (this) {
+      if (mIsDisposed) {
+        return null;
+      }
+      IS_DISPOSED.setRelease(this, true);
+      instance = (V) DELEGATE.get(this);
+      listeners = mDisposeListeners;
+      DELEGATE.setRelease(this, null);
+      mDisposeListeners = null;
+    }
+
+    notifyDisposeListeners(listeners);
+    return instance;
+  }
+
+  /**
+   * For use by subclasses that need to mark this object as disposed while they're synchronized
+   * on it (e.g. to check that their delegate is empty first). Works like {@link #markDisposed()}
+   * (dropping the delegate) but doesn't notify our listeners, since they may take locks of their
+   * own. Pass the result to {@link #notifyDisposeListeners(List)} once the lock is released.
+   * @return The listeners to notify, or null if there are none (or we were already disposed)
+   */
+  protected final @Nullable List<DisposeListener> markDisposedWithoutNotifying() {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return null;
+    }
+
+    synchronized (this) {
+      if (mIsDisposed) {
+        return null;
+      }
+      IS_DISPOSED.setRelease(this, true);
+      DELEGATE.setRelease(this, null);
+      List<DisposeListener> listeners = mDisposeListeners;
+      mDisposeListeners = null;
+      return listeners;
+    }
+  }
+
+  /**
+   * For use by subclasses - notify the listeners returned by {@link #markDisposedWithoutNotifying()}.
+   * Must not be called while synchronized on this object.
+   * @param listeners The listeners to notify (may be null)
+   */
+  protected final void notifyDisposeListeners(@Nullable List<DisposeListener> listeners) {
+    if (listeners == null) {
+      return;
+    }
+    for (DisposeListener listener : listeners) {
+      listener.onDisposed(this);
+    }
+  }
+
+  /**
+   * For use by subclasses that implement {@link ListenableDisposable} - register a listener
+   * to be notified the first time {@link #markDisposed()} is called. If this object has already
+   * been marked disposed, the listener is notified immediately.
+   * @param listener The {@link DisposeListener} to register
+   */
+  protected final void registerDisposeListener(DisposeListener listener) {
+    if (!(boolean) IS_DISPOSED.getAcquire(this)) {
+      synchronized (this) {
+        if (!mIsDisposed) {
+          if (mDisposeListeners == null) {
+            mDisposeListeners = new LinkedList<DisposeListener>();
+          }
+          mDisposeListeners.add(listener);
+          return;
+        }
+      }
+    }
+    listener.onDisposed(this);
+  }
+
+  /**
+   * For use by subclasses that implement {@link ListenableDisposable} - unregister a listener
+   * previously registered via {@link #registerDisposeListener(DisposeListener)}
+   * @param listener The {@link DisposeListener} to unregister
+   */
+  protected final void unregisterDisposeListener(DisposeListener listener) {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return;
+    }
+
+    synchronized (this) {
+      if (mDisposeListeners != null) {
+        mDisposeListeners.remove(listener);
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.episode6.hackit.disposable;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * An implementation of {@link CheckedDisposable} where you can {@link #set(Disposable)} the disposable delegate
+ * after-the-fact. If this object is already disposed by the time {@link #set(Disposable)} is called, then dispose()
+ * will be called immediately on the provided Disposable.
+ *
+ * If the provided Disposable is a {@link ListenableDisposable}, this object will dispose itself (and notify its own
+ * {@link DisposeListener}s) as soon as the provided Disposable is disposed.
+ *
+ * Our monitor only guards our own state, the delegate is always disposed / checked outside of it.
+ *
+ * Java 9+ version: mIsDisposed is accessed through a {@link VarHandle} using acquire/release ordering.
+ */
+public class SettableDisposable implements CheckedDisposable, ListenableDisposable {
+
+  private static final VarHandle IS_DISPOSED;
+  static {
+    try {
+      IS_DISPOSED = MethodHandles.lookup().findVarHandle(SettableDisposable.class, "mIsDisposed", boolean.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  public static SettableDisposable create() {
+    return new SettableDisposable();
+  }
+
+  private transient boolean mIsDisposed = false;
+  private boolean mIsSet = false;
+  private @Nullable Disposable mDisposable;
+  private @Nullable List<DisposeListener> mDisposeListeners;
+
+  public void set(Disposable disposable) {
+    final boolean isDisposed;
+    synchronized (this) {
+      if (mIsSet) {
+        throw new IllegalStateException("Tried to set SettableDisposable that is already set.");
+      }
+      mIsSet = true;
+      isDisposed = mIsDisposed;
+      if (!isDisposed) {
+        mDisposable = disposable;
+      }
+    }
+
+    if (isDisposed) {
+      disposable.dispose();
+    } else if (disposable instanceof ListenableDisposable) {
+      ((ListenableDisposable) disposable).addDisposeListener(new DisposeListener() {
+        @Override
+        public void onDisposed(Disposable disposable) {
+          dispose();
+        }
+      });
+    }
+  }
+
+  @Override
+  public void dispose() {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return;
+    }
+
+    final Disposable disposable;
+    final List<DisposeListener> listeners;
+    synchronized (this) {
+      if (mIsDisposed) {
+        return;
+      }
+      IS_DISPOSED.setRelease(this, true);
+      disposable = mDisposable;
+      listeners = mDisposeListeners;
+      mDisposable = null;
+      mDisposeListeners = null;
+    }
+
+    try {
+      MaybeDisposables.dispose(disposable);
+    } finally {
+      if (listeners != null) {
+        for (DisposeListener listener : listeners) {
+          listener.onDisposed(this);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return true;
+    }
+
+    final Disposable disposable;
+    synchronized (this) {
+      if (mIsDisposed) {
+        return true;
+      }
+      if (!mIsSet) {
+        return false;
+      }
+      disposable = mDisposable;
+    }
+    return MaybeDisposables.isFlushable(disposable);
+  }
+
+  @Override
+  public void addDisposeListener(DisposeListener listener) {
+    if (!(boolean) IS_DISPOSED.getAcquire(this)) {
+      synchronized (this) {
+        if (!mIsDisposed) {
+          if (mDisposeListeners == null) {
+            mDisposeListeners = new LinkedList<DisposeListener>();
+          }
+          mDisposeListeners.add(listener);
+          return;
+        }
+      }
+    }
+    listener.onDisposed(this);
+  }
+
+  @Override
+  public void removeDisposeListener(DisposeListener listener) {
+    if ((boolean) IS_DISPOSED.getAcquire(this)) {
+      return;
+    }
+
+    synchronized (this) {
+      if (mDisposeListeners != null) {
+        mDisposeListeners.remove(listener);
+      }
+    }
+  }
+}
@@ -4,11 +4,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.mockito.stubbing.Answer;
 
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -135,6 +138,61 @@ public class DisposableManagerTest {
     verifyNoMoreInteractions(mDisposable1, mDisposable2, mCheckedDisposable1, mCheckedDisposable2);
   }
 
+  @Test
+  public void testListenableDisposableRemovedEagerly() throws NoSuchFieldException, IllegalAccessException {
+    DisposableRunnable runnable = Disposables.singleUseRunnable(mock(Runnable.class));
+    CheckedDisposable checkedDisposable = Disposables.checked(mDisposable1);
+    DisposableManager collection = create(runnable, checkedDisposable, mDisposable2);
+
+    runnable.run();
+    checkedDisposable.dispose();
+
+    verify(mDisposable1).dispose();
+    assertThat(getInternalList(collection)).containsOnly(mDisposable2);
+  }
+
+  @Test
+  public void testListenableDisposableDisposedDuringFlush() throws NoSuchFieldException, IllegalAccessException {
+    final CheckedDisposable checkedDisposable = Disposables.checked(mDisposable1);
+    DisposableManager collection = create(mHasDisposables, checkedDisposable, mDisposable2);
+    when(mHasDisposables.flushDisposed()).then(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        checkedDisposable.dispose();
+        return false;
+      }
+    });
+
+    collection.flushDisposed();
+
+    assertThat(getInternalList(collection)).containsOnly(mHasDisposables, mDisposable2);
+  }
+
+  @Test
+  public void testChildFlushedOutsideOfMonitor() throws NoSuchFieldException, IllegalAccessException {
+    final DisposableManager collection = create(mHasDisposables, mDisposable1);
+    when(mHasDisposables.flushDisposed()).then(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        // a child that waits on another thread that needs the manager
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            collection.addDisposable(mDisposable2);
+          }
+        });
+        thread.start();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        return !thread.isAlive();
+      }
+    });
+
+    boolean disposed = collection.flushDisposed();
+
+    assertThat(disposed).isFalse();
+    assertThat(getInternalList(collection)).containsExactly(mDisposable1, mDisposable2);
+  }
+
   @SuppressWarnings("unchecked")
   private static List<Disposable> getInternalList(DisposableManager collection)
       throws NoSuchFieldException, IllegalAccessException {
@@ -13,6 +13,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
 /**
@@ -215,6 +216,53 @@ public class MaybeDisposablesTest {
     assertThat(list).isEmpty();
   }
 
+  @Test
+  public void disposeListFailureDisposesEveryItem() {
+    IllegalStateException firstException = new IllegalStateException("first");
+    IllegalArgumentException secondException = new IllegalArgumentException("second");
+    doThrow(firstException).when(mHasDisposables).dispose();
+    doThrow(secondException).when(mDisposable).dispose();
+    List<Object> list = asList(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+
+    try {
+      MaybeDisposables.disposeList(list);
+      fail("expected disposeList to throw");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(firstException);
+      assertThat(e.getSuppressed()).containsOnly(secondException);
+    }
+
+    InOrder inOrder = Mockito.inOrder(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+    inOrder.verify(mHasDisposables).dispose();
+    inOrder.verify(mCheckedDisposable).dispose();
+    inOrder.verify(mDisposable).dispose();
+    verifyNoMoreInteractions(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+    assertThat(list).isEmpty();
+  }
+
+  @Test
+  public void disposeListSharedFailureDisposesEveryItem() {
+    IllegalStateException sharedException = new IllegalStateException("shared");
+    doThrow(sharedException).when(mHasDisposables).dispose();
+    doThrow(sharedException).when(mDisposable).dispose();
+    List<Object> list = asList(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+
+    try {
+      MaybeDisposables.disposeList(list);
+      fail("expected disposeList to throw");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(sharedException);
+      assertThat(e.getSuppressed()).isEmpty();
+    }
+
+    InOrder inOrder = Mockito.inOrder(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+    inOrder.verify(mHasDisposables).dispose();
+    inOrder.verify(mCheckedDisposable).dispose();
+    inOrder.verify(mDisposable).dispose();
+    verifyNoMoreInteractions(mDisposable, mCheckedDisposable, mHasDisposables, mTestObj);
+    assertThat(list).isEmpty();
+  }
+
   @Test
   public void flushList() {
     when(mCheckedDisposable.isDisposed()).thenReturn(true);
@@ -21,6 +21,7 @@ public class SettableDisposableTest {
   @Mock Disposable mDisposable;
   @Mock CheckedDisposable mCheckedDisposable;
   @Mock HasDisposables mHasDisposables;
+  @Mock DisposeListener mDisposeListener;
 
   SettableDisposable mSettableDisposable = SettableDisposable.create();
 
@@ -90,4 +91,51 @@ public class SettableDisposableTest {
     verify(mHasDisposables).flushDisposed();
     verifyNoMoreInteractions(mHasDisposables);
   }
+
+  @Test
+  public void testDisposeNotifiesListener() {
+    mSettableDisposable.addDisposeListener(mDisposeListener);
+    mSettableDisposable.set(mDisposable);
+
+    mSettableDisposable.dispose();
+    mSettableDisposable.dispose();
+
+    verify(mDisposable).dispose();
+    verify(mDisposeListener).onDisposed(mSettableDisposable);
+    verifyNoMoreInteractions(mDisposable, mDisposeListener);
+  }
+
+  @Test
+  public void testAddListenerAfterDispose() {
+    mSettableDisposable.dispose();
+
+    mSettableDisposable.addDisposeListener(mDisposeListener);
+
+    verify(mDisposeListener).onDisposed(mSettableDisposable);
+    verifyNoMoreInteractions(mDisposeListener);
+  }
+
+  @Test
+  public void testRemovedListenerNotNotified() {
+    mSettableDisposable.addDisposeListener(mDisposeListener);
+    mSettableDisposable.removeDisposeListener(mDisposeListener);
+
+    mSettableDisposable.dispose();
+
+    verifyNoMoreInteractions(mDisposeListener);
+  }
+
+  @Test
+  public void testListenableDelegateDisposeNotifiesListener() {
+    CheckedDisposable checkedDisposable = Disposables.checked(mDisposable);
+    mSettableDisposable.set(checkedDisposable);
+    mSettableDisposable.addDisposeListener(mDisposeListener);
+
+    checkedDisposable.dispose();
+
+    assertThat(mSettableDisposable.isDisposed()).isTrue();
+    verify(mDisposable).dispose();
+    verify(mDisposeListener).onDisposed(mSettableDisposable);
+    verifyNoMoreInteractions(mDisposable, mDisposeListener);
+  }
 }
@@ -0,0 +1,273 @@
+package com.episode6.hackit.pausable.future;
+
+import com.episode6.hackit.disposable.AbstractDelegateDisposable;
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+import com.episode6.hackit.disposable.future.DisposableFuture;
+import com.episode6.hackit.disposable.future.DisposableFutures;
+import com.episode6.hackit.pausable.DisposablePausable;
+import com.episode6.hackit.pausable.CancellablePausableExecutor;
+import com.episode6.hackit.pausable.Pausables;
+import com.google.common.util.concurrent.AbstractListeningExecutorService;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * EXPERIMENTAL!
+ *
+ * A guava {@link com.google.common.util.concurrent.ListeningExecutorService} that implements
+ * {@link DisposablePausable} and whose submit methods return {@link DisposableFuture}s.
+ *
+ * Tasks are run on the supplied executor via {@link Pausables#concurrentExecutor(Executor)}, so
+ * tasks submitted while paused are buffered without tying up any of the executor's threads, and
+ * the executor's parallelism is kept while resumed.
+ *
+ * Disposing a returned future removes its task from the paused backlog, or cancels (and interrupts)
+ * it if it's already running. {@link #shutdownNow()} and {@link #dispose()} dispose every outstanding
+ * future in a single pass. {@link #shutdown()} keeps the usual {@link java.util.concurrent.ExecutorService}
+ * contract and lets outstanding tasks finish (including ones that are waiting for {@link #resume()}).
+ */
+public class PausableListeningExecutorService extends AbstractListeningExecutorService implements DisposablePausable {
+
+  private final CancellablePausableExecutor mPausableExecutor;
+
+  private final Lock mLock = new ReentrantLock();
+  private final Condition mTerminationCondition = mLock.newCondition();
+  private final Set<TrackedTask<?>> mOutstandingTasks = new LinkedHashSet<>();
+  private boolean mShutdown = false;
+
+  public PausableListeningExecutorService(Executor delegate) {
+    mPausableExecutor = Pausables.concurrentExecutor(delegate);
+  }
+
+  @Override
+  public void pause() {
+    mPausableExecutor.pause();
+  }
+
+  @Override
+  public void resume() {
+    mPausableExecutor.resume();
+  }
+
+  @Override
+  public void dispose() {
+    shutdownNow();
+  }
+
+  @Override
+  public DisposableFuture<?> submit(Runnable task) {
+    return submitTask(ListenableFutureTask.create(task, null));
+  }
+
+  @Override
+  public <T> DisposableFuture<T> submit(Runnable task, @Nullable T result) {
+    return submitTask(ListenableFutureTask.create(task, result));
+  }
+
+  @Override
+  public <T> DisposableFuture<T> submit(Callable<T> task) {
+    return submitTask(ListenableFutureTask.create(task));
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submit(command);
+  }
+
+  @Override
+  public void shutdown() {
+    mLock.lock();
+    try {
+      mShutdown = true;
+      tryTerminate();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Shut down and dispose every outstanding future.
+   * @return The tasks that were still waiting to run (they have been cancelled)
+   */
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<TrackedTask<?>> outstandingTasks;
+    mLock.lock();
+    try {
+      mShutdown = true;
+      outstandingTasks = new ArrayList<>(mOutstandingTasks);
+    } finally {
+      mLock.unlock();
+    }
+
+    List<Runnable> waitingTasks = new ArrayList<>();
+    for (TrackedTask<?> task : outstandingTasks) {
+      Runnable waitingTask = task.getWaitingTask();
+      if (waitingTask != null) {
+        waitingTasks.add(waitingTask);
+      }
+    }
+    MaybeDisposables.disposeList(outstandingTasks);
+    return waitingTasks;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    mLock.lock();
+    try {
+      return mShutdown;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    mLock.lock();
+    try {
+      return mShutdown && mOutstandingTasks.isEmpty();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    mLock.lock();
+    try {
+      while (!mShutdown || !mOutstandingTasks.isEmpty()) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = mTerminationCondition.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private <T> DisposableFuture<T> submitTask(ListenableFutureTask<T> futureTask) {
+    TrackedTask<T> trackedTask = new TrackedTask<>(futureTask);
+    mLock.lock();
+    try {
+      if (mShutdown) {
+        throw new RejectedExecutionException("Executor has been shut down");
+      }
+      mOutstandingTasks.add(trackedTask);
+    } finally {
+      mLock.unlock();
+    }
+
+    // marks trackedTask disposed (and stops tracking it) once the task completes or is cancelled
+    futureTask.addListener(trackedTask, MoreExecutors.directExecutor());
+    try {
+      trackedTask.mHandle = mPausableExecutor.submit(futureTask);
+    } catch (RuntimeException e) {
+      futureTask.cancel(false);
+      throw e;
+    }
+    return DisposableFutures.wrap(futureTask, trackedTask);
+  }
+
+  private void onTaskFinished(TrackedTask<?> trackedTask) {
+    mLock.lock();
+    try {
+      mOutstandingTasks.remove(trackedTask);
+      tryTerminate();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void tryTerminate() {
+    if (mShutdown && mOutstandingTasks.isEmpty()) {
+      mTerminationCondition.signalAll();
+    }
+  }
+
+  /**
+   * The disposable we attach to each returned future. It marks itself disposed when its task
+   * completes, so the future (and any {@link com.episode6.hackit.disposable.DisposableManager}
+   * holding it) can let go of it.
+   */
+  private class TrackedTask<T> extends AbstractDelegateDisposable<ListenableFutureTask<T>>
+      implements CheckedDisposable, ListenableDisposable, Runnable {
+
+    // the handle returned by mPausableExecutor, null until the task has been submitted
+    volatile @Nullable CheckedDisposable mHandle;
+
+    TrackedTask(ListenableFutureTask<T> futureTask) {
+      super(futureTask);
+    }
+
+    /**
+     * @return the task if it hasn't been started (or cancelled) yet, null otherwise
+     */
+    @Nullable Runnable getWaitingTask() {
+      CheckedDisposable handle = mHandle;
+      ListenableFutureTask<T> futureTask = getDelegateOrNull();
+      return handle == null || handle.isDisposed() ? null : futureTask;
+    }
+
+    @Override
+    public void run() {
+      if (markDisposed() != null) {
+        onTaskFinished(this);
+      }
+    }
+
+    @Override
+    public void dispose() {
+      ListenableFutureTask<T> futureTask = markDisposed();
+      if (futureTask == null) {
+        return;
+      }
+
+      try {
+        CheckedDisposable handle = mHandle;
+        if (handle != null) {
+          handle.dispose();
+        }
+        futureTask.cancel(true);
+      } finally {
+        onTaskFinished(this);
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return isMarkedDisposed();
+    }
+
+    @Override
+    public void addDisposeListener(DisposeListener listener) {
+      registerDisposeListener(listener);
+    }
+
+    @Override
+    public void removeDisposeListener(DisposeListener listener) {
+      unregisterDisposeListener(listener);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.episode6.hackit.pausable.future;
+
+import com.episode6.hackit.disposable.future.DisposableFuture;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link PausableListeningExecutorService}
+ */
+public class PausableListeningExecutorServiceTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mRunnable;
+  @Mock Callable<String> mCallable;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+  final PausableListeningExecutorService mExecutorService = new PausableListeningExecutorService(mCapturingExecutor);
+  final ExecutorService mThreadPool = Executors.newSingleThreadExecutor();
+
+  @After
+  public void tearDown() {
+    mThreadPool.shutdownNow();
+  }
+
+  @Test
+  public void testSubmitRuns() throws Exception {
+    when(mCallable.call()).thenReturn("result");
+
+    DisposableFuture<String> future = mExecutorService.submit(mCallable);
+    mCapturingExecutor.runAll();
+
+    assertThat(future.get()).isEqualTo("result");
+    assertThat(future.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testPauseBuffersTasks() {
+    mExecutorService.pause();
+    DisposableFuture<?> future = mExecutorService.submit(mRunnable);
+
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+
+    mExecutorService.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    assertThat(future.isDone()).isTrue();
+  }
+
+  @Test
+  public void testDisposeRemovesQueuedTask() {
+    mExecutorService.pause();
+    DisposableFuture<?> future = mExecutorService.submit(mRunnable);
+
+    future.dispose();
+    mExecutorService.resume();
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testDisposeCancelsRunningTask() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    PausableListeningExecutorService executorService = new PausableListeningExecutorService(mThreadPool);
+    DisposableFuture<?> future = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          Thread.sleep(5000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }
+    });
+    assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+    future.dispose();
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testShutdownLetsTasksFinish() throws InterruptedException {
+    mExecutorService.pause();
+    DisposableFuture<?> future = mExecutorService.submit(mRunnable);
+
+    mExecutorService.shutdown();
+
+    assertThat(mExecutorService.isShutdown()).isTrue();
+    assertThat(mExecutorService.isTerminated()).isFalse();
+
+    mExecutorService.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    assertThat(future.isDone()).isTrue();
+    assertThat(mExecutorService.awaitTermination(0, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testShutdownNowDisposesOutstandingFutures() {
+    mExecutorService.pause();
+    DisposableFuture<?> future1 = mExecutorService.submit(mRunnable);
+    DisposableFuture<?> future2 = mExecutorService.submit(mRunnable);
+
+    List<Runnable> waitingTasks = mExecutorService.shutdownNow();
+    mExecutorService.resume();
+
+    assertThat(waitingTasks).hasSize(2);
+    assertThat(future1.isCancelled()).isTrue();
+    assertThat(future2.isCancelled()).isTrue();
+    assertThat(mExecutorService.isTerminated()).isTrue();
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testRejectAfterShutdown() {
+    mExecutorService.shutdown();
+
+    try {
+      mExecutorService.submit(mRunnable);
+      fail("expected RejectedExecutionException");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+  }
+
+  private static class CapturingExecutor implements Executor {
+    final List<Runnable> mRunnables = new LinkedList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      mRunnables.add(command);
+    }
+
+    void runAll() {
+      List<Runnable> runnables = new LinkedList<>(mRunnables);
+      mRunnables.clear();
+      for (Runnable runnable : runnables) {
+        runnable.run();
+      }
+    }
+  }
+}
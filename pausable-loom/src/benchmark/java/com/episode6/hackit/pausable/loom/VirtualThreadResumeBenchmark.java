@@ -0,0 +1,67 @@
+package com.episode6.hackit.pausable.loom;
+
+import com.episode6.hackit.pausable.PausableExecutor;
+import com.episode6.hackit.pausable.Pausables;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link VirtualThreadPausableExecutor} (tasks park at a shared gate) with the queuing designs in
+ * pausables-core ({@link Pausables#queuingExecutor} and {@link Pausables#concurrentExecutor}, both given a
+ * virtual-thread-per-task executor), measuring how long it takes to submit a backlog while paused, how long
+ * resume() itself takes, and how long until the whole backlog has run.
+ *
+ * Run with `./gradlew runBenchmark -PbenchmarkClass=VirtualThreadResumeBenchmark` from pausable-loom/
+ */
+public class VirtualThreadResumeBenchmark {
+
+  private static final int TASKS = 100000;
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) throws InterruptedException {
+    ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      for (int i = 0; i < ITERATIONS; i++) {
+        run("gated     ", new VirtualThreadPausableExecutor());
+        run("concurrent", Pausables.concurrentExecutor(virtualThreads));
+        run("queuing   ", Pausables.queuingExecutor(virtualThreads));
+      }
+    } finally {
+      virtualThreads.shutdownNow();
+    }
+  }
+
+  private static void run(String name, PausableExecutor executor) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(TASKS);
+    Runnable task = done::countDown;
+
+    executor.pause();
+    long submitStart = System.nanoTime();
+    for (int i = 0; i < TASKS; i++) {
+      executor.execute(task);
+    }
+    long submitNanos = System.nanoTime() - submitStart;
+
+    long resumeStart = System.nanoTime();
+    executor.resume();
+    long resumeNanos = System.nanoTime() - resumeStart;
+    done.await(1, TimeUnit.MINUTES);
+    long completeNanos = System.nanoTime() - resumeStart;
+
+    System.out.println(String.format(
+        "%s %d tasks: submit=%.2fms (%.0f tasks/s) resume()=%.3fms resume-to-complete=%.2fms",
+        name,
+        TASKS,
+        millis(submitNanos),
+        TASKS / (submitNanos / 1e9),
+        millis(resumeNanos),
+        millis(completeNanos)));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1000000.0;
+  }
+}
@@ -0,0 +1,128 @@
+package com.episode6.hackit.pausable.loom;
+
+import com.episode6.hackit.disposable.AbstractDelegateDisposable;
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.pausable.CancellablePausableExecutor;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link CancellablePausableExecutor} that starts every task on its own virtual thread. Tasks that start
+ * while paused park on a gate shared by all of them, instead of being moved into a queue and
+ * re-executed later, and run as soon as the gate opens.
+ *
+ * The gate is a single {@link CountDownLatch} (swapped for a fresh one on each pause), so pause and
+ * resume are constant time no matter how many tasks are parked. Tasks are not held in any order and
+ * run concurrently once resumed. Disposing a parked task's handle interrupts its thread so it exits
+ * straight away, a task that has already started running is not interrupted.
+ */
+public class VirtualThreadPausableExecutor implements CancellablePausableExecutor {
+
+  private static final CountDownLatch OPEN = new CountDownLatch(0);
+
+  private final ThreadFactory mThreadFactory;
+  private final AtomicReference<CountDownLatch> mGate = new AtomicReference<>(OPEN);
+
+  public VirtualThreadPausableExecutor() {
+    this(Thread.ofVirtual().name("VirtualThreadPausableExecutor-", 0).factory());
+  }
+
+  /**
+   * @param threadFactory Creates the thread each task runs on (usually a virtual thread factory)
+   */
+  public VirtualThreadPausableExecutor(ThreadFactory threadFactory) {
+    mThreadFactory = threadFactory;
+  }
+
+  @Override
+  public void pause() {
+    mGate.compareAndSet(OPEN, new CountDownLatch(1));
+  }
+
+  @Override
+  public void resume() {
+    mGate.getAndSet(OPEN).countDown();
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submit(command);
+  }
+
+  @Override
+  public CheckedDisposable submit(Runnable command) {
+    GatedTask task = new GatedTask(command);
+    mThreadFactory.newThread(task).start();
+    return task;
+  }
+
+  private class GatedTask extends AbstractDelegateDisposable<Runnable>
+      implements Runnable, CheckedDisposable, ListenableDisposable {
+
+    // the thread we're waiting at the gate on, so dispose() can wake it
+    volatile @Nullable Thread mParkedThread;
+
+    GatedTask(Runnable runnable) {
+      super(runnable);
+    }
+
+    @Override
+    public void run() {
+      boolean interrupted = false;
+      mParkedThread = Thread.currentThread();
+      try {
+        CountDownLatch gate;
+        while ((gate = mGate.get()) != OPEN && !isMarkedDisposed()) {
+          try {
+            gate.await();
+          } catch (InterruptedException e) {
+            // either dispose() woke us, or someone else interrupted us and we keep waiting
+            interrupted = true;
+          }
+        }
+      } finally {
+        mParkedThread = null;
+      }
+
+      Runnable runnable = markDisposed();
+      if (runnable == null) {
+        return;
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      runnable.run();
+    }
+
+    @Override
+    public void dispose() {
+      if (markDisposed() == null) {
+        return;
+      }
+      Thread parkedThread = mParkedThread;
+      if (parkedThread != null) {
+        parkedThread.interrupt();
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return isMarkedDisposed();
+    }
+
+    @Override
+    public void addDisposeListener(DisposeListener listener) {
+      registerDisposeListener(listener);
+    }
+
+    @Override
+    public void removeDisposeListener(DisposeListener listener) {
+      unregisterDisposeListener(listener);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.SettableDisposable;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Stress tests disposables and pausables on virtual threads with blocking disposers, pausables
+ * and tasks, and verifies that JFR records no jdk.VirtualThreadPinned events.
+ */
+public class VirtualThreadPinningTest {
+
+  private static final int THREAD_COUNT = 200;
+  private static final long BLOCK_MILLIS = 1;
+
+  static class BlockingDisposablePausable implements DisposablePausable {
+
+    @Override
+    public void pause() {
+      block();
+    }
+
+    @Override
+    public void resume() {
+      block();
+    }
+
+    @Override
+    public void dispose() {
+      block();
+    }
+  }
+
+  Recording mRecording;
+  ExecutorService mVirtualThreads;
+
+  @Before
+  public void setup() {
+    mRecording = new Recording();
+    mRecording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+    mRecording.start();
+    mVirtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    mVirtualThreads.shutdownNow();
+    mRecording.close();
+  }
+
+  @Test
+  public void testBlockingDisposersDontPin() throws Exception {
+    final PausableDisposableManager manager = Pausables.newDisposableManager();
+
+    runConcurrently(new Runnable() {
+      @Override
+      public void run() {
+        SettableDisposable settableDisposable = SettableDisposable.create();
+        settableDisposable.set(new BlockingDisposablePausable());
+        manager.addDisposable(settableDisposable);
+        manager.addPausable(new BlockingDisposablePausable());
+        settableDisposable.dispose();
+      }
+    });
+    manager.dispose();
+
+    assertThat(pinnedEvents()).isEmpty();
+  }
+
+  @Test
+  public void testBlockingPausablesDontPin() throws Exception {
+    final PausableDisposableManager manager = Pausables.newDisposableManager();
+    for (int i = 0; i < 3; i++) {
+      manager.addPausable(new BlockingDisposablePausable());
+    }
+
+    runConcurrently(new Runnable() {
+      @Override
+      public void run() {
+        manager.pause();
+        manager.resume();
+      }
+    });
+
+    assertThat(pinnedEvents()).isEmpty();
+  }
+
+  @Test
+  public void testBlockingTasksDontPin() throws Exception {
+    final PausableExecutor executor = Pausables.queuingExecutor(mVirtualThreads);
+    final CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+
+    runConcurrently(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            block();
+            latch.countDown();
+          }
+        });
+        executor.pause();
+        executor.resume();
+      }
+    });
+
+    assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(pinnedEvents()).isEmpty();
+  }
+
+  private void runConcurrently(final Runnable runnable) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      mVirtualThreads.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            runnable.run();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            done.countDown();
+          }
+        }
+      });
+    }
+    start.countDown();
+    assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private List<RecordedEvent> pinnedEvents() throws Exception {
+    mRecording.stop();
+    Path path = Files.createTempFile("pinning", ".jfr");
+    try {
+      mRecording.dump(path);
+      List<RecordedEvent> pinned = new ArrayList<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(path)) {
+        if (event.getEventType().getName().equals("jdk.VirtualThreadPinned")) {
+          pinned.add(event);
+        }
+      }
+      return pinned;
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  private static void block() {
+    try {
+      Thread.sleep(BLOCK_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.episode6.hackit.pausable.loom;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests {@link VirtualThreadPausableExecutor}
+ */
+public class VirtualThreadPausableExecutorTest {
+
+  final VirtualThreadPausableExecutor mExecutor = new VirtualThreadPausableExecutor();
+
+  @Test
+  public void testRunsOnVirtualThread() throws InterruptedException {
+    final AtomicBoolean virtual = new AtomicBoolean(false);
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    CheckedDisposable handle = mExecutor.submit(() -> {
+      virtual.set(Thread.currentThread().isVirtual());
+      latch.countDown();
+    });
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(virtual.get()).isTrue();
+    assertThat(handle.isDisposed()).isTrue();
+  }
+
+  @Test
+  public void testParksWhilePaused() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    mExecutor.pause();
+
+    mExecutor.execute(latch::countDown);
+
+    assertThat(latch.await(50, TimeUnit.MILLISECONDS)).isFalse();
+
+    mExecutor.resume();
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testManyParkedTasks() throws InterruptedException {
+    int taskCount = 100000;
+    CountDownLatch latch = new CountDownLatch(taskCount);
+    mExecutor.pause();
+
+    for (int i = 0; i < taskCount; i++) {
+      mExecutor.execute(latch::countDown);
+    }
+    Thread.sleep(50);
+
+    assertThat(latch.getCount()).isEqualTo(taskCount);
+
+    mExecutor.resume();
+
+    assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testPauseIsIdempotent() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    mExecutor.pause();
+    mExecutor.execute(latch::countDown);
+    mExecutor.pause();
+
+    assertThat(latch.await(50, TimeUnit.MILLISECONDS)).isFalse();
+
+    mExecutor.resume();
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testPauseAfterResume() throws InterruptedException {
+    CountDownLatch first = new CountDownLatch(1);
+    CountDownLatch second = new CountDownLatch(1);
+    mExecutor.pause();
+    mExecutor.execute(first::countDown);
+    mExecutor.resume();
+
+    assertThat(first.await(1, TimeUnit.SECONDS)).isTrue();
+
+    mExecutor.pause();
+    mExecutor.execute(second::countDown);
+
+    assertThat(second.await(50, TimeUnit.MILLISECONDS)).isFalse();
+
+    mExecutor.resume();
+
+    assertThat(second.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testDisposeParkedTask() throws InterruptedException {
+    AtomicInteger runCount = new AtomicInteger();
+    mExecutor.pause();
+
+    CheckedDisposable handle = mExecutor.submit(runCount::incrementAndGet);
+    Thread.sleep(20);
+    handle.dispose();
+    mExecutor.resume();
+    Thread.sleep(20);
+
+    assertThat(handle.isDisposed()).isTrue();
+    assertThat(runCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisposedParkedTaskExits() throws InterruptedException {
+    CountDownLatch exited = new CountDownLatch(1);
+    VirtualThreadPausableExecutor executor = new VirtualThreadPausableExecutor(runnable -> Thread.ofVirtual().unstarted(() -> {
+      runnable.run();
+      exited.countDown();
+    }));
+    executor.pause();
+
+    CheckedDisposable handle = executor.submit(() -> {});
+    Thread.sleep(20);
+    handle.dispose();
+
+    assertThat(exited.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+}
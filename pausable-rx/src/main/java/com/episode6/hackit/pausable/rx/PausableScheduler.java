@@ -1,55 +1,79 @@
 package com.episode6.hackit.pausable.rx;
 
 import com.episode6.hackit.pausable.Pausable;
+import com.episode6.hackit.pausable.PausableInstrumentation;
 import io.reactivex.Completable;
 import io.reactivex.Flowable;
 import io.reactivex.Scheduler;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Function;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * EXPERIMENTAL!
  *
  * A {@link Scheduler} that implements {@link Pausable}.
+ *
+ * Tasks that start while paused are added to a lock-free queue that is drained on {@link #resume()}.
+ * Only one thread drains at a time (see {@link #drain()}), and a task that is queued just after
+ * resume() finished draining drains the queue itself.
+ *
+ * Measurements are only taken if we're given a {@link PausableInstrumentation} other than
+ * {@link PausableInstrumentation#NONE}.
  */
 public class PausableScheduler extends Scheduler implements Pausable {
 
   private transient volatile boolean mPaused = false;
   private final Scheduler mDelegate;
-  private final List<PausableRunnable> mRunnableQueue = new LinkedList<>();
+  private final Queue<PausableRunnable> mRunnableQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger mDrainWip = new AtomicInteger();
+
+  private final PausableInstrumentation mInstrumentation;
+  private final boolean mInstrumented;
+  // only maintained if mInstrumented
+  private final AtomicInteger mQueuedCount = new AtomicInteger();
+  private final AtomicInteger mBacklogHighWaterMark = new AtomicInteger();
+  private transient volatile long mPausedAtNanos = 0;
+  private transient volatile long mDrainStartNanos = 0;
+  private int mDrainedCount = 0; // only touched while draining
 
   public PausableScheduler(Scheduler delegate) {
+    this(delegate, PausableInstrumentation.NONE);
+  }
+
+  /**
+   * @param delegate The scheduler to run tasks on
+   * @param instrumentation Receives pause durations, backlog sizes, queued task latency and drain times
+   */
+  public PausableScheduler(Scheduler delegate, PausableInstrumentation instrumentation) {
     mDelegate = delegate;
+    mInstrumentation = instrumentation;
+    mInstrumented = instrumentation != PausableInstrumentation.NONE;
   }
 
   @Override
   public void pause() {
-    synchronized (this) {
-      mPaused = true;
+    if (mInstrumented && !mPaused) {
+      mPausedAtNanos = System.nanoTime();
+      mBacklogHighWaterMark.set(mQueuedCount.get());
     }
+    mPaused = true;
   }
 
   @Override
   public void resume() {
-    List<PausableRunnable> runnables;
-    synchronized (this) {
-      mPaused = false;
-
-      if (mRunnableQueue.isEmpty()) {
-        return;
-      }
-
-      runnables = new LinkedList<>(mRunnableQueue);
-      mRunnableQueue.clear();
-    }
-
-    for (PausableRunnable run : runnables) {
-      mDelegate.scheduleDirect(run);
+    boolean wasPaused = mPaused;
+    mPaused = false;
+    if (mInstrumented && wasPaused) {
+      long now = System.nanoTime();
+      mDrainStartNanos = mQueuedCount.get() > 0 ? now : 0;
+      mInstrumentation.onResumed(now - mPausedAtNanos, mBacklogHighWaterMark.get());
     }
+    drain();
   }
 
   @Override
@@ -93,6 +117,70 @@ public class PausableScheduler extends Scheduler implements Pausable {
     return mDelegate.when(combine);
   }
 
+  /**
+   * Reschedule queued tasks on our delegate until the queue is empty or we're paused again.
+   * If another thread is already draining, it will go around again instead.
+   *
+   * If our delegate throws, the task it was given is dropped, and we stop draining and rethrow.
+   * The rest of the queue is left for the next drain (e.g. the next resume()).
+   */
+  private void drain() {
+    if (mDrainWip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    try {
+      do {
+        PausableRunnable run;
+        while (!mPaused && (run = mRunnableQueue.poll()) != null) {
+          if (mInstrumented) {
+            mQueuedCount.decrementAndGet();
+            mDrainedCount++;
+          }
+          mDelegate.scheduleDirect(run);
+        }
+        if (mInstrumented) {
+          checkBacklogDrained();
+        }
+        missed = mDrainWip.addAndGet(-missed);
+      } while (missed != 0);
+    } finally {
+      if (missed != 0) {
+        // we threw, stop draining so we don't wedge every drain after us
+        mDrainWip.set(0);
+      }
+    }
+  }
+
+  /**
+   * Must only be called from {@link #drain()}. Reports the drain started by the last resume()
+   * once the queue is empty.
+   */
+  private void checkBacklogDrained() {
+    long drainStartNanos = mDrainStartNanos;
+    if (drainStartNanos == 0) {
+      mDrainedCount = 0;
+      return;
+    }
+    if (mPaused) {
+      // paused again before the queue emptied, the next resume starts a new measurement
+      mDrainStartNanos = 0;
+      mDrainedCount = 0;
+    } else if (mQueuedCount.get() == 0) {
+      mDrainStartNanos = 0;
+      mInstrumentation.onBacklogDrained(mDrainedCount, System.nanoTime() - drainStartNanos);
+      mDrainedCount = 0;
+    }
+  }
+
+  private void recordQueued() {
+    int queuedCount = mQueuedCount.incrementAndGet();
+    int highWaterMark;
+    while ((highWaterMark = mBacklogHighWaterMark.get()) < queuedCount
+        && !mBacklogHighWaterMark.compareAndSet(highWaterMark, queuedCount)) {}
+  }
+
   private Runnable wrapRunnable(Runnable runnable) {
     if (runnable instanceof PausableRunnable) {
       return runnable;
@@ -142,6 +230,8 @@ public class PausableScheduler extends Scheduler implements Pausable {
   class PausableRunnable implements Runnable {
 
     private final Runnable mDelegate;
+    // when we were queued, only set if mInstrumented
+    private volatile long mQueuedAtNanos = 0;
 
     PausableRunnable(Runnable delegate) {
       mDelegate = delegate;
@@ -149,11 +239,25 @@ public class PausableScheduler extends Scheduler implements Pausable {
 
     @Override
     public void run() {
-      synchronized (PausableScheduler.this) {
-        if (mPaused) {
-          mRunnableQueue.add(this);
-          return;
+      if (mPaused) {
+        if (mInstrumented) {
+          if (mQueuedAtNanos == 0) {
+            mQueuedAtNanos = System.nanoTime();
+          }
+          recordQueued();
         }
+        mRunnableQueue.offer(this);
+        if (!mPaused) {
+          // resume() may have drained before we were queued
+          drain();
+        }
+        return;
+      }
+      long queuedAtNanos = mQueuedAtNanos;
+      if (queuedAtNanos != 0) {
+        // periodic tasks reuse this runnable, so reset for the next time we're queued
+        mQueuedAtNanos = 0;
+        mInstrumentation.onQueuedTaskStarted(System.nanoTime() - queuedAtNanos);
       }
       mDelegate.run();
     }
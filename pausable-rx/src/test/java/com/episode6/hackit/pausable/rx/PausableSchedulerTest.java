@@ -1,5 +1,6 @@
 package com.episode6.hackit.pausable.rx;
 
+import com.episode6.hackit.pausable.PausableInstrumentation;
 import io.reactivex.Scheduler;
 import io.reactivex.schedulers.Schedulers;
 import org.junit.Rule;
@@ -8,9 +9,22 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 /**
@@ -49,4 +63,96 @@ public class PausableSchedulerTest {
 
     verify(mRunnable).run();
   }
+
+  @Test
+  public void testConcurrentProducersWhileToggling() throws InterruptedException {
+    final int producers = 4;
+    final int tasksPerProducer = 5000;
+    final AtomicInteger runCount = new AtomicInteger();
+    final Runnable countingRunnable = new Runnable() {
+      @Override
+      public void run() {
+        runCount.incrementAndGet();
+      }
+    };
+    final CountDownLatch done = new CountDownLatch(producers);
+    ExecutorService threadPool = Executors.newFixedThreadPool(producers);
+    for (int i = 0; i < producers; i++) {
+      threadPool.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < tasksPerProducer; j++) {
+            mPausableScheduler.scheduleDirect(countingRunnable);
+          }
+          done.countDown();
+        }
+      });
+    }
+
+    while (done.getCount() > 0) {
+      mPausableScheduler.pause();
+      mPausableScheduler.resume();
+    }
+    threadPool.shutdown();
+    threadPool.awaitTermination(5, TimeUnit.SECONDS);
+
+    assertThat(runCount.get()).isEqualTo(producers * tasksPerProducer);
+  }
+
+  @Test
+  public void testDelegateFailureDuringDrain() {
+    final AtomicInteger failures = new AtomicInteger(0);
+    PausableScheduler pausableScheduler = new PausableScheduler(Schedulers.from(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (failures.getAndDecrement() > 0) {
+          throw new IllegalStateException("busy");
+        }
+        command.run();
+      }
+    }));
+    pausableScheduler.pause();
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.scheduleDirect(mRunnable);
+    failures.set(1);
+
+    try {
+      pausableScheduler.resume();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    verifyZeroInteractions(mRunnable);
+
+    pausableScheduler.pause();
+    pausableScheduler.resume();
+
+    verify(mRunnable, times(2)).run();
+
+    pausableScheduler.pause();
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.resume();
+
+    verify(mRunnable, times(3)).run();
+  }
+
+  @Test
+  public void testInstrumentation() {
+    PausableInstrumentation instrumentation = mock(PausableInstrumentation.class);
+    PausableScheduler pausableScheduler = new PausableScheduler(realScheduler, instrumentation);
+
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.pause();
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.scheduleDirect(mRunnable);
+    pausableScheduler.resume();
+
+    verify(mRunnable, times(3)).run();
+    verify(instrumentation).onResumed(anyLong(), eq(2));
+    verify(instrumentation, times(2)).onQueuedTaskStarted(anyLong());
+    verify(instrumentation).onBacklogDrained(eq(2), anyLong());
+    verifyNoMoreInteractions(instrumentation);
+  }
 }
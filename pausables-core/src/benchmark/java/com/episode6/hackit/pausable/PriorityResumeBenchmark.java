@@ -0,0 +1,90 @@
+package com.episode6.hackit.pausable;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long high priority tasks wait to start after a {@link PausableExecutor} with a
+ * large backlog is resumed, comparing {@link Pausables#concurrentExecutor} (FIFO) with
+ * {@link Pausables#priorityExecutor}.
+ *
+ * Run with `./gradlew :pausables-core:runBenchmark -PbenchmarkClass=PriorityResumeBenchmark`
+ */
+public class PriorityResumeBenchmark {
+
+  private static final int THREADS = 4;
+  private static final int TASKS = 20000;
+  private static final int HIGH_PRIORITY_EVERY = 10;
+  private static final long TASK_WORK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+  private static final int ITERATIONS = 5;
+
+  public static void main(String[] args) throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int i = 0; i < ITERATIONS; i++) {
+        report("fifo    ", run(Pausables.concurrentExecutor(pool), false));
+        report("priority", run(Pausables.priorityExecutor(pool), true));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static long[] run(final PausableExecutor executor, boolean prioritize) throws InterruptedException {
+    final int highCount = TASKS / HIGH_PRIORITY_EVERY;
+    final long[] highLatencies = new long[highCount];
+    final long[] resumedAt = new long[1];
+    final CountDownLatch done = new CountDownLatch(TASKS);
+
+    executor.pause();
+    int highIndex = 0;
+    for (int i = 0; i < TASKS; i++) {
+      final boolean isHigh = i % HIGH_PRIORITY_EVERY == 0;
+      final int index = isHigh ? highIndex++ : -1;
+      Runnable task = new Runnable() {
+        @Override
+        public void run() {
+          if (index >= 0) {
+            highLatencies[index] = System.nanoTime() - resumedAt[0];
+          }
+          spin(TASK_WORK_NANOS);
+          done.countDown();
+        }
+      };
+      if (prioritize) {
+        ((PriorityPausableExecutor) executor).execute(isHigh ? 1 : 0, task);
+      } else {
+        executor.execute(task);
+      }
+    }
+
+    resumedAt[0] = System.nanoTime();
+    executor.resume();
+    done.await();
+    return highLatencies;
+  }
+
+  private static void report(String name, long[] latencies) {
+    Arrays.sort(latencies);
+    System.out.println(String.format(
+        "%s high priority start latency after resume: p50=%.2fms p99=%.2fms max=%.2fms",
+        name,
+        millis(latencies[latencies.length / 2]),
+        millis(latencies[(int) (latencies.length * 0.99)]),
+        millis(latencies[latencies.length - 1])));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  private static void spin(long nanos) {
+    long end = System.nanoTime() + nanos;
+    while (System.nanoTime() < end) {
+      // busy work
+    }
+  }
+}
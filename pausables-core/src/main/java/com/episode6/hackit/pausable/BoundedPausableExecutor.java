@@ -0,0 +1,50 @@
+package com.episode6.hackit.pausable;
+
+/**
+ * A {@link PausableExecutor} that holds at most {@link #getCapacity()} tasks while paused.
+ * What happens to tasks executed while the queue is full is decided by its {@link OverflowPolicy}.
+ */
+public interface BoundedPausableExecutor extends CancellablePausableExecutor {
+
+  /**
+   * What to do with a task that is executed while paused and the queue is already full.
+   */
+  enum OverflowPolicy {
+    /**
+     * Throw a {@link java.util.concurrent.RejectedExecutionException} from execute.
+     */
+    REJECT,
+
+    /**
+     * Discard the oldest queued task to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new task.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Block the calling thread until there is room in the queue (or we are resumed). If a
+     * timeout was supplied and it elapses first, a
+     * {@link java.util.concurrent.RejectedExecutionException} is thrown.
+     */
+    BLOCK
+  }
+
+  /**
+   * @return the maximum number of tasks this executor will queue while paused.
+   */
+  int getCapacity();
+
+  /**
+   * @return the number of tasks currently queued, waiting for {@link #resume()}
+   */
+  int getQueuedCount();
+
+  /**
+   * @return the total number of tasks that have been dropped or rejected because the queue was full.
+   */
+  long getDroppedCount();
+}
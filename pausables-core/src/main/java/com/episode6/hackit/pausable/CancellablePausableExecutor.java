@@ -0,0 +1,19 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+/**
+ * A {@link PausableExecutor} that can also hand back a handle for each task it executes.
+ */
+public interface CancellablePausableExecutor extends PausableExecutor {
+
+  /**
+   * Execute a task and return a handle that can cancel it. Disposing the handle removes the task from
+   * the paused backlog, or prevents it from running if it has already been passed to the underlying
+   * executor but hasn't started yet. Disposing the handle after the task has started has no effect.
+   * @param command The task to execute
+   * @return A {@link CheckedDisposable} that reports itself disposed once the task has run,
+   * been dropped, or been cancelled.
+   */
+  CheckedDisposable submit(Runnable command);
+}
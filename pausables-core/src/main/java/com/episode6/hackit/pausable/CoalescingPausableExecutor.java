@@ -0,0 +1,28 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+/**
+ * A {@link PausableExecutor} that can coalesce redundant tasks while paused. Tasks executed
+ * with a key replace any task with an equal key that is already waiting for {@link #resume()},
+ * so only the latest task per key is run when we resume.
+ */
+public interface CoalescingPausableExecutor extends CancellablePausableExecutor {
+
+  /**
+   * Execute a task, replacing any task with an equal key that is currently waiting for
+   * {@link #resume()}. When not paused, this is equivalent to {@link #execute(Runnable)}.
+   * @param key The key that identifies redundant tasks (compared with equals/hashCode)
+   * @param command The task to execute
+   */
+  void execute(Object key, Runnable command);
+
+  /**
+   * Same as {@link #execute(Object, Runnable)}, but returns a handle that can cancel the task
+   * (see {@link #submit(Runnable)}). The handle of a task that gets replaced reports itself disposed.
+   * @param key The key that identifies redundant tasks (compared with equals/hashCode)
+   * @param command The task to execute
+   * @return A {@link CheckedDisposable} handle for the task
+   */
+  CheckedDisposable submit(Object key, Runnable command);
+}
@@ -0,0 +1,159 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableExecutor} that keeps the parallelism of its delegate executor. Unlike
+ * {@link Pausables#queuingExecutor(Executor)}, tasks are never run while holding a lock, so
+ * multiple tasks may run at once.
+ *
+ * Tasks executed while paused are queued and passed to the delegate on resume. Tasks that were
+ * already passed to the delegate but find us paused when they start are re-queued the same way.
+ * Calling {@link #pause()} does not wait for tasks that have already started.
+ *
+ * Queued tasks are keyed so that tasks executed via {@link #execute(Object, Runnable)} can replace
+ * earlier ones with the same key. Unkeyed tasks are keyed by themselves, so they never coalesce.
+ * Keying the backlog also means a task whose handle is disposed while queued is unlinked in constant time.
+ */
+class ConcurrentPausableExecutor implements CoalescingPausableExecutor {
+
+  private transient volatile boolean mPaused = false;
+  private final Executor mDelegate;
+
+  // guards mRunnables only, never held while running a task
+  private final Lock mLock = new ReentrantLock();
+  private final Map<Object, PausableRunnable> mRunnables = new LinkedHashMap<>();
+
+  ConcurrentPausableExecutor(Executor delegate) {
+    mDelegate = delegate;
+  }
+
+  @Override
+  public void pause() {
+    mPaused = true;
+  }
+
+  @Override
+  public void resume() {
+    List<PausableRunnable> runnables;
+    mLock.lock();
+    try {
+      mPaused = false;
+
+      if (mRunnables.isEmpty()) {
+        return;
+      }
+
+      runnables = new ArrayList<>(mRunnables.values());
+      mRunnables.clear();
+    } finally {
+      mLock.unlock();
+    }
+    for (PausableRunnable runnable : runnables) {
+      mDelegate.execute(runnable);
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submit(null, command);
+  }
+
+  @Override
+  public void execute(Object key, Runnable command) {
+    submit(key, command);
+  }
+
+  @Override
+  public CheckedDisposable submit(Runnable command) {
+    return submit(null, command);
+  }
+
+  @Override
+  public CheckedDisposable submit(Object key, Runnable command) {
+    PausableRunnable pausableRunnable = new PausableRunnable(key, command);
+    if (!queueIfPaused(pausableRunnable, true)) {
+      mDelegate.execute(pausableRunnable);
+    }
+    return pausableRunnable;
+  }
+
+  /**
+   * @param replace true if the runnable should replace a queued runnable with the same key,
+   *                false if it should be dropped in favor of the queued one
+   * @return true if we're paused and the runnable was queued (or dropped), false if it should run now.
+   */
+  private boolean queueIfPaused(PausableRunnable runnable, boolean replace) {
+    if (!mPaused) {
+      return false;
+    }
+
+    PausableRunnable dropped;
+    mLock.lock();
+    try {
+      // re-check under the lock so we can't queue a runnable after resume() has drained the queue
+      if (!mPaused) {
+        return false;
+      }
+      if (runnable.isDisposed()) {
+        // cancelled while being re-queued, onCancelled() may already have run
+        return true;
+      }
+      if (replace) {
+        // remove first so the replacement takes the position of the latest submission
+        dropped = mRunnables.remove(runnable.mKey);
+        mRunnables.put(runnable.mKey, runnable);
+      } else if (mRunnables.containsKey(runnable.mKey)) {
+        dropped = runnable;
+      } else {
+        dropped = null;
+        mRunnables.put(runnable.mKey, runnable);
+      }
+    } finally {
+      mLock.unlock();
+    }
+
+    if (dropped != null) {
+      dropped.discard();
+    }
+    return true;
+  }
+
+  private class PausableRunnable extends PausableTask {
+
+    final Object mKey;
+
+    PausableRunnable(Object key, Runnable runnable) {
+      super(runnable);
+      mKey = key == null ? this : key;
+    }
+
+    @Override
+    public void run() {
+      // a task re-queued at dispatch is older than anything queued since, so it never replaces
+      if (!isMarkedDisposed() && !queueIfPaused(this, false)) {
+        runNow();
+      }
+    }
+
+    @Override
+    void onCancelled() {
+      mLock.lock();
+      try {
+        if (mRunnables.get(mKey) == this) {
+          mRunnables.remove(mKey);
+        }
+      } finally {
+        mLock.unlock();
+      }
+    }
+  }
+}
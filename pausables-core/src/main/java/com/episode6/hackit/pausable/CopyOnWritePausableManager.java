@@ -0,0 +1,149 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link PausableManager} for when pause / resume are called far more often than pausables are
+ * added or removed.
+ *
+ * Children are kept in an immutable array that's swapped out (via CAS) whenever one is added, removed
+ * or flushed. Pause and resume iterate over whatever array is current when they start without taking
+ * any lock or allocating, so they never block each other or {@link #addPausable(Pausable)}. The catch
+ * is that a child added during a pause / resume will not see that call, and every add copies the array.
+ */
+class CopyOnWritePausableManager implements PausableManager, HasDisposables, DisposeListener {
+
+  private static final Pausable[] EMPTY = new Pausable[0];
+  private static final Pausable[] DISPOSED = new Pausable[0];
+
+  private static final AtomicReferenceFieldUpdater<CopyOnWritePausableManager, Pausable[]> PAUSABLES =
+      AtomicReferenceFieldUpdater.newUpdater(CopyOnWritePausableManager.class, Pausable[].class, "mPausables");
+
+  private volatile Pausable[] mPausables;
+
+  CopyOnWritePausableManager(Pausable... prefill) {
+    mPausables = prefill.length == 0 ? EMPTY : prefill.clone();
+    for (Pausable pausable : prefill) {
+      listenTo(pausable);
+    }
+  }
+
+  @Override
+  public void addPausable(Pausable pausable) {
+    Pausable[] current;
+    Pausable[] updated;
+    do {
+      current = getPausablesOrThrow();
+      updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = pausable;
+    } while (!PAUSABLES.compareAndSet(this, current, updated));
+    listenTo(pausable);
+  }
+
+  @Override
+  public void pause() {
+    Pausable[] pausables = getPausablesOrThrow();
+    for (int i = pausables.length - 1; i >= 0; i--) {
+      pausables[i].pause();
+    }
+  }
+
+  @Override
+  public void resume() {
+    Pausable[] pausables = getPausablesOrThrow();
+    for (int i = 0; i < pausables.length; i++) {
+      pausables[i].resume();
+    }
+  }
+
+  @Override
+  public boolean flushDisposed() {
+    Pausable[] current;
+    Pausable[] updated;
+    do {
+      current = mPausables;
+      if (current == DISPOSED) {
+        return true;
+      }
+      updated = withoutFlushable(current);
+      if (updated == current) {
+        return false;
+      }
+    } while (!PAUSABLES.compareAndSet(this, current, updated));
+    return false;
+  }
+
+  @Override
+  public void dispose() {
+    mPausables = DISPOSED;
+  }
+
+  @Override
+  public void onDisposed(Disposable disposable) {
+    Pausable[] current;
+    Pausable[] updated;
+    do {
+      current = mPausables;
+      int index = indexOf(current, disposable);
+      if (index < 0) {
+        return;
+      }
+      updated = new Pausable[current.length - 1];
+      System.arraycopy(current, 0, updated, 0, index);
+      System.arraycopy(current, index + 1, updated, index, updated.length - index);
+    } while (!PAUSABLES.compareAndSet(this, current, updated));
+  }
+
+  private Pausable[] getPausablesOrThrow() {
+    Pausable[] pausables = mPausables;
+    if (pausables == DISPOSED) {
+      throw new IllegalStateException(
+          "Attempted to interact with disposable after it's been disposed: " + toString());
+    }
+    return pausables;
+  }
+
+  private void listenTo(Pausable pausable) {
+    if (pausable instanceof ListenableDisposable) {
+      ((ListenableDisposable) pausable).addDisposeListener(this);
+    }
+  }
+
+  /**
+   * @return pausables if none of them are flushable, otherwise a copy without the flushable ones.
+   */
+  private static Pausable[] withoutFlushable(Pausable[] pausables) {
+    Pausable[] kept = null;
+    int keptCount = 0;
+    for (int i = 0; i < pausables.length; i++) {
+      if (MaybeDisposables.isFlushable(pausables[i])) {
+        if (kept == null) {
+          kept = Arrays.copyOf(pausables, pausables.length - 1);
+          keptCount = i;
+        }
+      } else if (kept != null) {
+        kept[keptCount++] = pausables[i];
+      }
+    }
+    if (kept == null) {
+      return pausables;
+    }
+    return keptCount == 0 ? EMPTY : Arrays.copyOf(kept, keptCount);
+  }
+
+  private static int indexOf(Pausable[] pausables, Object pausable) {
+    for (int i = 0; i < pausables.length; i++) {
+      if (pausables[i] == pausable) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,103 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A lock-free {@link PauseGate}. Tokens only touch mPauseCount, and any thread that moves the count
+ * to or from 0 reconciles the pausable with it. Reconciling is serialized by mApplyWip (the same
+ * drain-loop pattern as the queuing executor), and it compares the current count against the state
+ * we last applied, so racing transitions can't leave the pausable in the wrong state, and a pause
+ * that is released before it's applied never reaches the pausable at all.
+ */
+class CountingPauseGate implements PauseGate {
+
+  private static final AtomicIntegerFieldUpdater<PauseToken> RELEASED =
+      AtomicIntegerFieldUpdater.newUpdater(PauseToken.class, "mReleased");
+
+  private final Pausable mPausable;
+  private final AtomicInteger mPauseCount = new AtomicInteger();
+  private final AtomicInteger mApplyWip = new AtomicInteger();
+  private boolean mAppliedPause = false; // only touched while holding mApplyWip
+
+  CountingPauseGate(Pausable pausable) {
+    mPausable = pausable;
+  }
+
+  /**
+   * If pausing mPausable throws, the exception is rethrown and no pause is held.
+   */
+  @Override
+  public CheckedDisposable acquirePause() {
+    if (mPauseCount.getAndIncrement() == 0) {
+      try {
+        apply();
+      } catch (RuntimeException | Error e) {
+        // the pause never reached mPausable (mAppliedPause is still false), so just drop the count
+        mPauseCount.decrementAndGet();
+        throw e;
+      }
+    }
+    return new PauseToken();
+  }
+
+  @Override
+  public int getPauseCount() {
+    return mPauseCount.get();
+  }
+
+  private void release() {
+    if (mPauseCount.decrementAndGet() == 0) {
+      apply();
+    }
+  }
+
+  /**
+   * If mPausable throws, mApplyWip is released and the exception is rethrown. mAppliedPause
+   * only changes once a call succeeds, so the failed transition is retried by the next one.
+   */
+  private void apply() {
+    if (mApplyWip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    try {
+      do {
+        boolean shouldPause = mPauseCount.get() > 0;
+        if (shouldPause != mAppliedPause) {
+          if (shouldPause) {
+            mPausable.pause();
+          } else {
+            mPausable.resume();
+          }
+          mAppliedPause = shouldPause;
+        }
+        missed = mApplyWip.addAndGet(-missed);
+      } while (missed != 0);
+    } finally {
+      if (missed != 0) {
+        mApplyWip.set(0);
+      }
+    }
+  }
+
+  private class PauseToken implements CheckedDisposable {
+
+    volatile int mReleased = 0;
+
+    @Override
+    public void dispose() {
+      if (RELEASED.compareAndSet(this, 0, 1)) {
+        release();
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return mReleased != 0;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.MaybeDisposables;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link Pausable} that waits until no pause / resume calls have been made for mWindowNanos,
+ * then forwards only the net change (if any) to mDelegate.
+ *
+ * Every call bumps mGeneration, cancels the pending flush and schedules a new one for that generation
+ * on mTimer, so each call pushes the deadline back and only one flush is ever pending. A flush whose
+ * generation is stale (because a later call was made after it started) does nothing. Forwarding is serialized by mApplyWip (as in {@link CountingPauseGate}), so mDelegate
+ * always sees alternating calls even if flushes run on more than one thread.
+ *
+ * mDelegate is called on mCallbackExecutor if we have one, otherwise directly on mTimer's thread.
+ */
+class DebouncedPausable implements DisposablePausable {
+
+  private final Pausable mDelegate;
+  private final long mWindowNanos;
+  private final ScheduledExecutorService mTimer;
+  private final @Nullable Executor mCallbackExecutor;
+  private final Runnable mApply = new Runnable() {
+    @Override
+    public void run() {
+      apply();
+    }
+  };
+
+  private transient volatile boolean mRequestedPause = false;
+  private transient volatile boolean mDisposed = false;
+  private final AtomicInteger mGeneration = new AtomicInteger();
+  private final AtomicInteger mApplyWip = new AtomicInteger();
+  private boolean mAppliedPause = false; // only touched while holding mApplyWip
+
+  // guards mPendingFlush, so a new generation and its flush are swapped in together
+  private final Lock mFlushLock = new ReentrantLock();
+  private @Nullable ScheduledFuture<?> mPendingFlush = null;
+
+  DebouncedPausable(
+      Pausable delegate,
+      long windowNanos,
+      ScheduledExecutorService timer,
+      @Nullable Executor callbackExecutor) {
+    if (windowNanos < 0) {
+      throw new IllegalArgumentException("window must not be negative: " + windowNanos);
+    }
+    mDelegate = delegate;
+    mWindowNanos = windowNanos;
+    mTimer = timer;
+    mCallbackExecutor = callbackExecutor;
+  }
+
+  @Override
+  public void pause() {
+    request(true);
+  }
+
+  @Override
+  public void resume() {
+    request(false);
+  }
+
+  /**
+   * Stop forwarding calls to mDelegate, including any that are still waiting out the window.
+   */
+  @Override
+  public void dispose() {
+    mDisposed = true;
+    mFlushLock.lock();
+    try {
+      mGeneration.incrementAndGet();
+      cancelPendingFlush();
+    } finally {
+      mFlushLock.unlock();
+    }
+  }
+
+  private void request(boolean pause) {
+    if (mDisposed) {
+      return;
+    }
+    mRequestedPause = pause;
+    mFlushLock.lock();
+    try {
+      cancelPendingFlush();
+      mPendingFlush = mTimer.schedule(
+          new Flush(mGeneration.incrementAndGet()),
+          mWindowNanos,
+          TimeUnit.NANOSECONDS);
+    } finally {
+      mFlushLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mFlushLock.
+   */
+  private void cancelPendingFlush() {
+    if (mPendingFlush != null) {
+      mPendingFlush.cancel(false);
+      mPendingFlush = null;
+    }
+  }
+
+  private void apply() {
+    if (mApplyWip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    try {
+      do {
+        boolean shouldPause = mRequestedPause;
+        if (!mDisposed && shouldPause != mAppliedPause) {
+          if (shouldPause) {
+            mDelegate.pause();
+          } else {
+            mDelegate.resume();
+          }
+          // set after the call succeeds, so a failed call is retried by the next flush
+          mAppliedPause = shouldPause;
+        }
+        missed = mApplyWip.addAndGet(-missed);
+      } while (missed != 0);
+    } finally {
+      if (missed != 0) {
+        mApplyWip.set(0);
+      }
+    }
+  }
+
+  private class Flush implements Runnable {
+    final int mFlushGeneration;
+
+    Flush(int generation) {
+      mFlushGeneration = generation;
+    }
+
+    @Override
+    public void run() {
+      if (mGeneration.get() != mFlushGeneration) {
+        // a later call pushed the deadline back (or we were disposed)
+        return;
+      }
+      if (mCallbackExecutor == null) {
+        apply();
+      } else {
+        mCallbackExecutor.execute(mApply);
+      }
+    }
+  }
+
+  /**
+   * A {@link PausableManager} whose children only see the net result of each burst of pause / resume
+   * calls. Flushing and disposing are passed through to the wrapped manager, and disposing also drops
+   * any calls that are still waiting out the window.
+   */
+  static class Manager implements PausableManager, HasDisposables {
+
+    private final PausableManager mPausableManager;
+    private final DebouncedPausable mDebouncedPausable;
+
+    Manager(
+        PausableManager pausableManager,
+        long windowNanos,
+        ScheduledExecutorService timer,
+        @Nullable Executor callbackExecutor) {
+      mPausableManager = pausableManager;
+      mDebouncedPausable = new DebouncedPausable(pausableManager, windowNanos, timer, callbackExecutor);
+    }
+
+    @Override
+    public void addPausable(Pausable pausable) {
+      mPausableManager.addPausable(pausable);
+    }
+
+    @Override
+    public void pause() {
+      mDebouncedPausable.pause();
+    }
+
+    @Override
+    public void resume() {
+      mDebouncedPausable.resume();
+    }
+
+    @Override
+    public boolean flushDisposed() {
+      return MaybeDisposables.isFlushable(mPausableManager);
+    }
+
+    @Override
+    public void dispose() {
+      mDebouncedPausable.dispose();
+      MaybeDisposables.dispose(mPausableManager);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.episode6.hackit.pausable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link PausableExecutor} that releases its paused backlog gradually (according to a
+ * {@link DrainPolicy}) after {@link #resume()}, rather than all at once. Tasks executed while the
+ * backlog is draining are not held behind it, they are passed straight to the delegate executor.
+ */
+public interface DrainingPausableExecutor extends CancellablePausableExecutor {
+
+  /**
+   * Describes how quickly a paused backlog is released after resume: batchSize tasks are
+   * released immediately, then another batchSize every interval until the backlog is empty
+   * (or we're paused again).
+   */
+  final class DrainPolicy {
+
+    /**
+     * @param batchSize The number of tasks to release per tick
+     * @param interval The time between ticks
+     * @param unit The unit of interval
+     * @return A new DrainPolicy
+     */
+    public static DrainPolicy batches(int batchSize, long interval, TimeUnit unit) {
+      return new DrainPolicy(batchSize, unit.toNanos(interval));
+    }
+
+    /**
+     * @param tasksPerSecond The approximate number of tasks to release per second
+     * @return A new DrainPolicy that releases tasks at the given rate, ticking no more than
+     * once per millisecond.
+     */
+    public static DrainPolicy rate(double tasksPerSecond) {
+      if (tasksPerSecond <= 0) {
+        throw new IllegalArgumentException("tasksPerSecond must be positive: " + tasksPerSecond);
+      }
+      long intervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), (long) (TimeUnit.SECONDS.toNanos(1) / tasksPerSecond));
+      int batchSize = (int) Math.max(1, Math.round(tasksPerSecond * intervalNanos / TimeUnit.SECONDS.toNanos(1)));
+      return new DrainPolicy(batchSize, intervalNanos);
+    }
+
+    final int mBatchSize;
+    final long mIntervalNanos;
+
+    private DrainPolicy(int batchSize, long intervalNanos) {
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+      }
+      if (intervalNanos < 0) {
+        throw new IllegalArgumentException("interval must not be negative: " + intervalNanos);
+      }
+      mBatchSize = batchSize;
+      mIntervalNanos = intervalNanos;
+    }
+
+    public int getBatchSize() {
+      return mBatchSize;
+    }
+
+    public long getInterval(TimeUnit unit) {
+      return unit.convert(mIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * @return the number of tasks still queued (either paused, or waiting to be released by the drain)
+   */
+  int getQueuedCount();
+
+  /**
+   * @return true if a paused backlog is currently being released
+   */
+  boolean isDraining();
+
+  /**
+   * @return the total number of queued tasks that have been released to the delegate executor.
+   */
+  long getDrainedCount();
+}
@@ -0,0 +1,289 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ParallelPausableManager} that fans each transition out to at most mParallelism workers
+ * on mExecutor. Each worker claims the next child of a snapshot via an AtomicInteger until none are
+ * left, so a slow child only holds up its own worker, and the last worker to finish completes the
+ * transition and starts the next queued one.
+ *
+ * Disposed children are dropped from mPausables by {@link #flushDisposed()}, or as soon as they
+ * tell us about it if they're {@link ListenableDisposable}s. Transitions that already took their
+ * snapshot still reach them.
+ */
+class FanOutPausableManager implements ParallelPausableManager, HasDisposables, DisposeListener {
+
+  private static final Runnable NO_OP = new Runnable() {
+    @Override
+    public void run() {}
+  };
+
+  private final Executor mExecutor;
+  private final int mParallelism;
+
+  // guards the fields below, never held while calling into a child
+  private final Lock mLock = new ReentrantLock();
+  private final List<Pausable> mPausables = new ArrayList<>();
+  private final Queue<Transition> mPendingTransitions = new LinkedList<>();
+  private @Nullable Transition mRunningTransition = null;
+  private boolean mDisposed = false;
+
+  FanOutPausableManager(Executor executor, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+    }
+    mExecutor = executor;
+    mParallelism = parallelism;
+  }
+
+  @Override
+  public void addPausable(Pausable pausable) {
+    mLock.lock();
+    try {
+      checkNotDisposed();
+      mPausables.add(pausable);
+    } finally {
+      mLock.unlock();
+    }
+    if (pausable instanceof ListenableDisposable) {
+      ((ListenableDisposable) pausable).addDisposeListener(this);
+    }
+  }
+
+  @Override
+  public void addOrderedGroup(Pausable... pausables) {
+    addPausable(Pausables.newManager(pausables));
+  }
+
+  @Override
+  public void pause() {
+    pauseAsync();
+  }
+
+  @Override
+  public void resume() {
+    resumeAsync();
+  }
+
+  @Override
+  public Future<Void> pauseAsync() {
+    return enqueue(new Transition(true));
+  }
+
+  @Override
+  public Future<Void> resumeAsync() {
+    return enqueue(new Transition(false));
+  }
+
+  @Override
+  public boolean flushDisposed() {
+    mLock.lock();
+    try {
+      if (!mDisposed) {
+        MaybeDisposables.flushList(mPausables);
+      }
+      return mDisposed;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Drops every child. Transitions that are already running or queued still complete, but
+   * any that haven't taken their snapshot yet won't reach any children.
+   */
+  @Override
+  public void dispose() {
+    mLock.lock();
+    try {
+      mDisposed = true;
+      mPausables.clear();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void onDisposed(Disposable disposable) {
+    mLock.lock();
+    try {
+      mPausables.remove(disposable);
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private Future<Void> enqueue(Transition transition) {
+    Transition next;
+    mLock.lock();
+    try {
+      checkNotDisposed();
+      mPendingTransitions.add(transition);
+      next = takeNext();
+    } finally {
+      mLock.unlock();
+    }
+    if (next != null) {
+      next.start();
+    }
+    return transition.mResult;
+  }
+
+  /**
+   * Must be called while holding mLock.
+   * @return the next transition to start (with its snapshot taken), or null if one is already
+   * running or there are none queued.
+   */
+  private @Nullable Transition takeNext() {
+    if (mRunningTransition != null || mPendingTransitions.isEmpty()) {
+      return null;
+    }
+    mRunningTransition = mPendingTransitions.poll();
+    mRunningTransition.mPausables = mPausables.toArray(new Pausable[mPausables.size()]);
+    return mRunningTransition;
+  }
+
+  private void onTransitionFinished() {
+    Transition next;
+    mLock.lock();
+    try {
+      mRunningTransition = null;
+      next = takeNext();
+    } finally {
+      mLock.unlock();
+    }
+    if (next != null) {
+      next.start();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void checkNotDisposed() {
+    if (mDisposed) {
+      throw new IllegalStateException(
+          "Attempted to interact with disposable after it's been disposed: " + toString());
+    }
+  }
+
+  private class Transition {
+
+    final boolean mPause;
+    final TransitionResult mResult = new TransitionResult();
+    final AtomicInteger mNextIndex = new AtomicInteger();
+    final AtomicInteger mActiveWorkers = new AtomicInteger();
+    Pausable[] mPausables;
+    private @Nullable Throwable mFailure; // guarded by this
+
+    /**
+     * Claims children until none are left. Every worker of this transition shares it.
+     */
+    final Runnable mWorker = new Runnable() {
+      @Override
+      public void run() {
+        int length = mPausables.length;
+        int index;
+        while ((index = mNextIndex.getAndIncrement()) < length) {
+          try {
+            if (mPause) {
+              MaybePausables.pause(mPausables[length - 1 - index]);
+            } else {
+              MaybePausables.resume(mPausables[index]);
+            }
+          } catch (RuntimeException | Error e) {
+            onFailure(e);
+          }
+        }
+        onWorkerFinished();
+      }
+    };
+
+    Transition(boolean pause) {
+      mPause = pause;
+    }
+
+    void start() {
+      int workers = Math.min(mParallelism, mPausables.length);
+      if (workers == 0) {
+        finish();
+        return;
+      }
+
+      mActiveWorkers.set(workers);
+      for (int i = 0; i < workers; i++) {
+        try {
+          mExecutor.execute(mWorker);
+        } catch (RuntimeException e) {
+          onFailure(e);
+          onWorkerFinished();
+        }
+      }
+    }
+
+    private void onWorkerFinished() {
+      if (mActiveWorkers.decrementAndGet() == 0) {
+        finish();
+      }
+    }
+
+    private synchronized void onFailure(Throwable failure) {
+      if (mFailure == null) {
+        mFailure = failure;
+      } else {
+        // a child may throw the same (shared) exception twice, which this ignores
+        MaybeDisposables.addSuppressed(mFailure, failure);
+      }
+    }
+
+    private void finish() {
+      Throwable failure;
+      synchronized (this) {
+        failure = mFailure;
+      }
+      mResult.complete(failure);
+      onTransitionFinished();
+    }
+  }
+
+  /**
+   * The {@link Future} handed out for a transition. Once queued, a transition always runs to
+   * completion (so its children never see pause / resume out of order), so it can't be cancelled.
+   */
+  private static class TransitionResult extends FutureTask<Void> {
+
+    TransitionResult() {
+      super(NO_OP, null);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      return false;
+    }
+
+    void complete(@Nullable Throwable failure) {
+      if (failure == null) {
+        set(null);
+      } else {
+        setException(failure);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.episode6.hackit.pausable;
+
+import java.util.concurrent.Future;
+
+/**
+ * A {@link PausableManager} that pauses and resumes its children concurrently on an executor,
+ * with a bounded number of children in flight at once.
+ *
+ * Transitions never overlap: a pause or resume requested while another is still fanning out
+ * starts once it completes, so a child never sees them out of order. {@link #pause()} and
+ * {@link #resume()} return as soon as the transition is queued, use {@link #pauseAsync()} and
+ * {@link #resumeAsync()} to find out when every child is done. Once queued, a transition can't be
+ * stopped: cancelling the returned {@link Future} does nothing (and returns false).
+ *
+ * Children are started in reverse order on pause and in order on resume, but since they run
+ * concurrently, children that depend on each other should be added together via
+ * {@link #addOrderedGroup(Pausable...)}.
+ */
+public interface ParallelPausableManager extends PausableManager {
+
+  /**
+   * Add pausables that must be paused in reverse order and resumed in order, one after the other.
+   * The group is paused / resumed as a single child.
+   * @param pausables The pausables to add, in resume order
+   */
+  void addOrderedGroup(Pausable... pausables);
+
+  /**
+   * Pause every child.
+   * @return A {@link Future} that completes once every child has been paused. If any children
+   * threw, it fails with the first exception (with the rest added as suppressed exceptions).
+   */
+  Future<Void> pauseAsync();
+
+  /**
+   * Resume every child.
+   * @return A {@link Future} that completes once every child has been resumed. If any children
+   * threw, it fails with the first exception (with the rest added as suppressed exceptions).
+   */
+  Future<Void> resumeAsync();
+}
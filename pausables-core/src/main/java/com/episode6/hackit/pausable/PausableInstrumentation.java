@@ -0,0 +1,46 @@
+package com.episode6.hackit.pausable;
+
+/**
+ * Receives measurements from a pausable executor / scheduler, so they can be recorded into whatever
+ * histograms / gauges the app already uses. Callbacks are made on whichever thread triggered them
+ * (never while holding the executor's lock) and should return quickly.
+ *
+ * Executors skip all timing when they're given {@link #NONE}, the default.
+ */
+public interface PausableInstrumentation {
+
+  /**
+   * Instrumentation that ignores everything.
+   */
+  PausableInstrumentation NONE = new PausableInstrumentation() {
+    @Override
+    public void onResumed(long pausedNanos, int backlogHighWaterMark) {}
+
+    @Override
+    public void onQueuedTaskStarted(long queuedNanos) {}
+
+    @Override
+    public void onBacklogDrained(int drainedCount, long drainNanos) {}
+  };
+
+  /**
+   * Called when a paused executor is resumed.
+   * @param pausedNanos How long it was paused for
+   * @param backlogHighWaterMark The largest the backlog got while it was paused
+   */
+  void onResumed(long pausedNanos, int backlogHighWaterMark);
+
+  /**
+   * Called when a task that was held back by a pause starts running.
+   * @param queuedNanos The time between the task being queued and it starting
+   */
+  void onQueuedTaskStarted(long queuedNanos);
+
+  /**
+   * Called once the backlog built up during a pause has been fully handed off to the delegate.
+   * Not called if the executor is paused again before then.
+   * @param drainedCount The number of tasks released
+   * @param drainNanos The time between resume and the last task being released
+   */
+  void onBacklogDrained(int drainedCount, long drainNanos);
+}
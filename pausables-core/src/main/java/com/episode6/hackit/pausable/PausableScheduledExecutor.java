@@ -0,0 +1,580 @@
+package com.episode6.hackit.pausable;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableScheduledExecutorService} that keeps every scheduled task in a single heap, watched
+ * by one timer thread that hands due tasks to mDelegate.
+ *
+ * Tasks are keyed on a clock that only runs while we're resumed (see {@link #clock()}), so pausing
+ * and resuming freezes every pending delay without touching the heap, no matter how many tasks
+ * are waiting. Insertion is O(log n). Like the priority executor, cancelled tasks are left in the heap
+ * and skipped when they come due, and the heap is compacted once they make up half of it.
+ *
+ * A due task that finds us paused when it starts is put back in the heap with its (already due)
+ * trigger time, so it runs first thing on resume.
+ */
+class PausableScheduledExecutor extends AbstractExecutorService implements PausableScheduledExecutorService {
+
+  private final Executor mDelegate;
+  private final ThreadFactory mTimerThreadFactory;
+  private final AtomicLong mSequence = new AtomicLong();
+  private final Runnable mTimerLoop = new Runnable() {
+    @Override
+    public void run() {
+      runTimer();
+    }
+  };
+
+  // guards everything below, never held while running a task
+  private final Lock mLock = new ReentrantLock();
+  private final Condition mTimerCondition = mLock.newCondition();
+  private final Condition mTerminationCondition = mLock.newCondition();
+  private final PriorityQueue<ScheduledTask<?>> mQueue = new PriorityQueue<>();
+  private int mCancelledCount = 0;
+  private int mActiveCount = 0;
+  private boolean mPaused = false;
+  private long mPausedAtNanos = 0;
+  private long mPausedNanos = 0;
+  private boolean mShutdown = false;
+  private boolean mStopped = false;
+  private boolean mTerminated = false;
+  private @Nullable Thread mTimerThread = null;
+
+  PausableScheduledExecutor(Executor delegate, ThreadFactory timerThreadFactory) {
+    mDelegate = delegate;
+    mTimerThreadFactory = timerThreadFactory;
+  }
+
+  @Override
+  public void pause() {
+    mLock.lock();
+    try {
+      if (!mPaused) {
+        mPausedAtNanos = System.nanoTime();
+        mPaused = true;
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void resume() {
+    mLock.lock();
+    try {
+      if (mPaused) {
+        mPausedNanos += System.nanoTime() - mPausedAtNanos;
+        mPaused = false;
+        mTimerCondition.signal();
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    for (Runnable runnable : shutdownNow()) {
+      ((Future<?>) runnable).cancel(false);
+    }
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    return schedule(Executors.callable(checkNotNull(command), null), delay, unit);
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+    return enqueueNew(new ScheduledTask<V>(checkNotNull(callable), unit.toNanos(delay), 0));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive: " + period);
+    }
+    return enqueueNew(new ScheduledTask<Void>(
+        Executors.<Void>callable(checkNotNull(command), null),
+        unit.toNanos(initialDelay),
+        unit.toNanos(period)));
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+    if (delay <= 0) {
+      throw new IllegalArgumentException("delay must be positive: " + delay);
+    }
+    return enqueueNew(new ScheduledTask<Void>(
+        Executors.<Void>callable(checkNotNull(command), null),
+        unit.toNanos(initialDelay),
+        -unit.toNanos(delay)));
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    schedule(command, 0, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public Future<?> submit(Runnable task) {
+    return schedule(task, 0, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public <T> Future<T> submit(Runnable task, T result) {
+    return schedule(Executors.callable(checkNotNull(task), result), 0, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public <T> Future<T> submit(Callable<T> task) {
+    return schedule(task, 0, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Stop accepting new tasks and cancel periodic ones. Delayed tasks that are already
+   * scheduled still run.
+   */
+  @Override
+  public void shutdown() {
+    List<ScheduledTask<?>> periodicTasks = new ArrayList<>();
+    mLock.lock();
+    try {
+      mShutdown = true;
+
+      // drop periodic and cancelled tasks now, so they can't hold off termination until they come due
+      List<ScheduledTask<?>> remaining = new ArrayList<>(mQueue.size());
+      for (ScheduledTask<?> task : mQueue) {
+        if (task.isPeriodic() || task.isCancelled()) {
+          task.mQueued = false;
+          if (!task.isCancelled()) {
+            periodicTasks.add(task);
+          }
+        } else {
+          remaining.add(task);
+        }
+      }
+      mQueue.clear();
+      mQueue.addAll(remaining);
+      mCancelledCount = 0;
+      mTimerCondition.signal();
+      tryTerminate();
+    } finally {
+      mLock.unlock();
+    }
+
+    for (ScheduledTask<?> task : periodicTasks) {
+      task.cancel(false);
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> runnables = new ArrayList<>();
+    mLock.lock();
+    try {
+      mShutdown = true;
+      mStopped = true;
+      for (ScheduledTask<?> task : mQueue) {
+        task.mQueued = false;
+        if (!task.isCancelled()) {
+          runnables.add(task);
+        }
+      }
+      mQueue.clear();
+      mCancelledCount = 0;
+      mTimerCondition.signal();
+      tryTerminate();
+    } finally {
+      mLock.unlock();
+    }
+    return runnables;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    mLock.lock();
+    try {
+      return mShutdown;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    mLock.lock();
+    try {
+      return mTerminated;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    mLock.lock();
+    try {
+      while (!mTerminated) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = mTerminationCondition.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock.
+   * @return the time in nanos that we have spent resumed, which only moves forward while we're not paused.
+   */
+  private long clock() {
+    return (mPaused ? mPausedAtNanos : System.nanoTime()) - mPausedNanos;
+  }
+
+  private <V> ScheduledTask<V> enqueueNew(ScheduledTask<V> task) {
+    mLock.lock();
+    try {
+      if (mShutdown) {
+        throw new RejectedExecutionException("Executor has been shut down");
+      }
+      task.mTrigger = triggerTime(task.mInitialDelayNanos);
+      enqueue(task);
+    } finally {
+      mLock.unlock();
+    }
+    return task;
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private long triggerTime(long delayNanos) {
+    long now = clock();
+    long trigger = now + Math.max(delayNanos, 0);
+    // saturate rather than overflow on enormous delays
+    return trigger < now ? Long.MAX_VALUE : trigger;
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void enqueue(ScheduledTask<?> task) {
+    task.mQueued = true;
+    mQueue.add(task);
+    if (mQueue.peek() == task) {
+      mTimerCondition.signal();
+    }
+    if (mTimerThread == null) {
+      mTimerThread = mTimerThreadFactory.newThread(mTimerLoop);
+      mTimerThread.start();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void tryTerminate() {
+    if (mShutdown && !mTerminated && mQueue.isEmpty() && mActiveCount == 0 && mTimerThread == null) {
+      mTerminated = true;
+      mTerminationCondition.signalAll();
+    }
+  }
+
+  private void runTimer() {
+    List<ScheduledTask<?>> dueTasks = new ArrayList<>();
+    while (true) {
+      mLock.lock();
+      try {
+        if (!awaitDueTasks()) {
+          mTimerThread = null;
+          tryTerminate();
+          return;
+        }
+
+        long now = clock();
+        ScheduledTask<?> head;
+        while ((head = mQueue.peek()) != null && head.mTrigger <= now) {
+          mQueue.poll();
+          head.mQueued = false;
+          if (head.isCancelled()) {
+            mCancelledCount--;
+          } else {
+            mActiveCount++;
+            dueTasks.add(head);
+          }
+        }
+      } finally {
+        mLock.unlock();
+      }
+
+      for (ScheduledTask<?> task : dueTasks) {
+        try {
+          mDelegate.execute(task);
+        } catch (RejectedExecutionException e) {
+          afterRun();
+          task.cancel(false);
+        } catch (RuntimeException | Error e) {
+          // a broken delegate fails the task, rather than killing our timer thread
+          afterRun();
+          task.fail(e);
+        }
+      }
+      dueTasks.clear();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock. Blocks until the head of our queue is due.
+   * @return false if the timer thread should exit
+   */
+  private boolean awaitDueTasks() {
+    while (true) {
+      if (mStopped || (mShutdown && mQueue.isEmpty())) {
+        return false;
+      }
+
+      ScheduledTask<?> head = mQueue.peek();
+      try {
+        if (mPaused || head == null) {
+          mTimerCondition.await();
+          continue;
+        }
+
+        long delayNanos = head.mTrigger - clock();
+        if (delayNanos <= 0) {
+          return true;
+        }
+        mTimerCondition.awaitNanos(delayNanos);
+      } catch (InterruptedException e) {
+        // our timer thread is private, shutdownNow() signals instead of interrupting, so keep going
+      }
+    }
+  }
+
+  /**
+   * Called by a due task on the delegate's thread before it runs.
+   * @return true if the task should run now, false if it was put back in the queue (because we're
+   * paused) or dropped (because we've been stopped).
+   */
+  private boolean beforeRun(ScheduledTask<?> task) {
+    mLock.lock();
+    try {
+      if (mStopped || task.isCancelled()) {
+        mActiveCount--;
+        if (mStopped) {
+          // already handed to the delegate, so shutdownNow() didn't return it, cancel it so its future completes
+          task.cancel(false);
+        }
+        tryTerminate();
+        return false;
+      }
+      if (mPaused) {
+        mActiveCount--;
+        enqueue(task);
+        return false;
+      }
+      return true;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Called after a one-shot task has run (or a due task was rejected by the delegate).
+   */
+  private void afterRun() {
+    mLock.lock();
+    try {
+      mActiveCount--;
+      tryTerminate();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private void onCancelled(ScheduledTask<?> task) {
+    mLock.lock();
+    try {
+      if (!task.mQueued) {
+        return;
+      }
+      mCancelledCount++;
+      if (mCancelledCount * 2 >= mQueue.size()) {
+        compact();
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock. Rebuilds the heap without its cancelled tasks.
+   */
+  private void compact() {
+    List<ScheduledTask<?>> live = new ArrayList<>(mQueue.size() - mCancelledCount);
+    for (ScheduledTask<?> task : mQueue) {
+      if (task.isCancelled()) {
+        task.mQueued = false;
+      } else {
+        live.add(task);
+      }
+    }
+    mQueue.clear();
+    mQueue.addAll(live);
+    mCancelledCount = 0;
+    if (mShutdown && mQueue.isEmpty()) {
+      // let the timer thread exit
+      mTimerCondition.signal();
+    }
+  }
+
+  private static <T> T checkNotNull(T reference) {
+    if (reference == null) {
+      throw new NullPointerException();
+    }
+    return reference;
+  }
+
+  private class ScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+    final long mInitialDelayNanos;
+    // positive for fixed rate, negative for fixed delay, 0 for one-shot tasks
+    final long mPeriodNanos;
+    final long mSequenceNumber;
+    // guarded by mLock
+    long mTrigger;
+    boolean mQueued = false;
+
+    ScheduledTask(Callable<V> callable, long initialDelayNanos, long periodNanos) {
+      super(callable);
+      mInitialDelayNanos = initialDelayNanos;
+      mPeriodNanos = periodNanos;
+      mSequenceNumber = mSequence.getAndIncrement();
+    }
+
+    void fail(Throwable failure) {
+      setException(failure);
+    }
+
+    @Override
+    public boolean isPeriodic() {
+      return mPeriodNanos != 0;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      mLock.lock();
+      try {
+        return unit.convert(mTrigger - clock(), TimeUnit.NANOSECONDS);
+      } finally {
+        mLock.unlock();
+      }
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      if (other == this) {
+        return 0;
+      }
+      if (other instanceof ScheduledTask) {
+        ScheduledTask<?> otherTask = (ScheduledTask<?>) other;
+        if (mTrigger != otherTask.mTrigger) {
+          return mTrigger < otherTask.mTrigger ? -1 : 1;
+        }
+        return mSequenceNumber < otherTask.mSequenceNumber ? -1 : 1;
+      }
+      long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+      return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        onCancelled(this);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public void run() {
+      if (!beforeRun(this)) {
+        return;
+      }
+
+      if (!isPeriodic()) {
+        try {
+          super.run();
+        } finally {
+          afterRun();
+        }
+        return;
+      }
+
+      boolean completed = false;
+      boolean shutdown;
+      try {
+        completed = super.runAndReset();
+      } finally {
+        mLock.lock();
+        try {
+          mActiveCount--;
+          shutdown = mShutdown;
+          if (completed && !shutdown) {
+            mTrigger = nextTrigger();
+            enqueue(this);
+          }
+          tryTerminate();
+        } finally {
+          mLock.unlock();
+        }
+      }
+      if (completed && shutdown) {
+        // periodic tasks don't outlive shutdown()
+        cancel(false);
+      }
+    }
+
+    /**
+     * Must be called while holding mLock.
+     */
+    private long nextTrigger() {
+      long now = clock();
+      if (mPeriodNanos < 0) {
+        return triggerTime(-mPeriodNanos);
+      }
+
+      long next = mTrigger + mPeriodNanos;
+      if (next <= now) {
+        // we overran one or more periods, skip the runs we missed instead of firing them back-to-back
+        next += ((now - next) / mPeriodNanos + 1) * mPeriodNanos;
+      }
+      return next;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.episode6.hackit.pausable;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A {@link ScheduledExecutorService} that implements {@link DisposablePausable}.
+ *
+ * Pausing freezes time for every scheduled task: remaining delays stop counting down and pick up
+ * where they left off on {@link #resume()} (so {@link java.util.concurrent.ScheduledFuture#getDelay}
+ * doesn't change while paused). Tasks that became due but hadn't started when we were paused run
+ * first thing on resume. Periodic tasks never accumulate missed runs, a run that overruns its period
+ * skips ahead to the next period instead of firing back-to-back.
+ *
+ * {@link #dispose()} is equivalent to {@link #shutdownNow()}, except that the tasks that never
+ * started are also cancelled.
+ */
+public interface PausableScheduledExecutorService extends ScheduledExecutorService, DisposablePausable {
+}
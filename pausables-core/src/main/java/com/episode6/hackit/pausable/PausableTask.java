@@ -0,0 +1,83 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.AbstractDelegateDisposable;
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+
+/**
+ * Base class for the runnables our {@link PausableExecutor}s pass to their delegates. It doubles
+ * as the handle returned by {@link CancellablePausableExecutor#submit(Runnable)}.
+ *
+ * The wrapped task is released the first time the task starts running, is discarded by its executor,
+ * or the handle is disposed, so a task that is disposed after being passed to the delegate never runs.
+ * The handle reports itself disposed from that point on, which lets a {@link com.episode6.hackit.disposable.DisposableManager}
+ * drop it as soon as the task has run.
+ */
+abstract class PausableTask extends AbstractDelegateDisposable<Runnable>
+    implements Runnable, CheckedDisposable, ListenableDisposable {
+
+  PausableTask(Runnable runnable) {
+    super(runnable);
+  }
+
+  /**
+   * Called once if the handle is disposed before the task started running. Implementations
+   * should unlink the task from their paused backlog if it's there.
+   */
+  abstract void onCancelled();
+
+  /**
+   * Run the wrapped task now, unless it has already been run, discarded or cancelled.
+   */
+  final void runNow() {
+    Runnable runnable = markDisposed();
+    if (runnable != null) {
+      runnable.run();
+    }
+  }
+
+  /**
+   * Run the wrapped task without releasing it, unless it has already been run, discarded or cancelled.
+   * For executors that run tasks while holding a lock of their own: they must {@link #discard()} the
+   * task once they've released that lock, so the handle's listeners (which may take locks of their
+   * own) aren't notified while it's held.
+   */
+  final void runHeld() {
+    Runnable runnable = getDelegateOrNull();
+    if (runnable != null) {
+      runnable.run();
+    }
+  }
+
+  /**
+   * Release the wrapped task, without running it if it hasn't been run via {@link #runHeld()}.
+   * Executors call this (outside of their locks) for tasks they drop or have run, so the handle
+   * reports itself disposed and notifies its listeners.
+   */
+  final void discard() {
+    markDisposed();
+  }
+
+  @Override
+  public void dispose() {
+    if (markDisposed() != null) {
+      onCancelled();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return isMarkedDisposed();
+  }
+
+  @Override
+  public void addDisposeListener(DisposeListener listener) {
+    registerDisposeListener(listener);
+  }
+
+  @Override
+  public void removeDisposeListener(DisposeListener listener) {
+    unregisterDisposeListener(listener);
+  }
+}
@@ -9,6 +9,12 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Utility class containing static methods to create pausables
@@ -19,6 +25,17 @@ public class Pausables {
     return new BasicPausableManager(pausables.length == 0 ? null : Arrays.asList(pausables));
   }
 
+  /**
+   * Create a new {@link PausableManager} that's optimized for frequent pause / resume calls and
+   * infrequent adds. Pause and resume iterate over an immutable snapshot of the children, without
+   * locking or allocating, and every add / flush swaps in a new copy.
+   * @param pausables Pausables to prefill the manager with
+   * @return A new {@link PausableManager}
+   */
+  public static PausableManager newCopyOnWriteManager(Pausable... pausables) {
+    return new CopyOnWritePausableManager(pausables);
+  }
+
   /**
    * Create a new {@link PausableDisposableManager} that manages both {@link Pausable}s
    * and {@link Disposable}s.
@@ -28,6 +45,26 @@ public class Pausables {
     return new BasicPausableDisposableManager();
   }
 
+  /**
+   * Create a new {@link PausableDisposableManager} that stores each child only once (with a bitmask
+   * of whether it's pausable / disposable / flushable) and takes a single lock per operation.
+   * @return A new (and empty) {@link PausableDisposableManager}
+   */
+  public static PausableDisposableManager newUnifiedDisposableManager() {
+    return new UnifiedPausableDisposableManager();
+  }
+
+  /**
+   * Create a new {@link ParallelPausableManager} that pauses and resumes its children concurrently
+   * on the supplied executor.
+   * @param executor The executor to pause / resume children on
+   * @param parallelism The maximum number of children to pause / resume at once
+   * @return A new (and empty) {@link ParallelPausableManager}
+   */
+  public static ParallelPausableManager newParallelManager(Executor executor, int parallelism) {
+    return new FanOutPausableManager(executor, parallelism);
+  }
+
   public static <T> CheckedDisposablePausable weak(T instance, Pauser<T> pauser) {
     return weak(instance, pauser, null);
   }
@@ -37,12 +74,323 @@ public class Pausables {
   }
 
   public static PausableExecutor queuingExecutor(Executor executor) {
+    return cancellableQueuingExecutor(executor);
+  }
+
+  /**
+   * Create a {@link CancellablePausableExecutor} that queues tasks while paused, like
+   * {@link #queuingExecutor(Executor)}, and can hand back a handle for each task it executes.
+   * @param executor The executor to run tasks on
+   * @return A new {@link CancellablePausableExecutor} (or executor itself if it already is one of ours)
+   */
+  public static CancellablePausableExecutor cancellableQueuingExecutor(Executor executor) {
     if (executor instanceof QueuingPausableExecutor) {
-      return (PausableExecutor) executor;
+      return (CancellablePausableExecutor) executor;
     }
     return new QueuingPausableExecutor(executor);
   }
 
+  /**
+   * Create a {@link CancellablePausableExecutor} like {@link #cancellableQueuingExecutor(Executor)} that reports pause
+   * durations, backlog sizes, queued task latency and drain times to instrumentation.
+   * @param executor The executor to run tasks on
+   * @param instrumentation Receives measurements
+   * @return A new {@link CancellablePausableExecutor}
+   */
+  public static CancellablePausableExecutor queuingExecutor(Executor executor, PausableInstrumentation instrumentation) {
+    return new QueuingPausableExecutor(
+        executor,
+        Integer.MAX_VALUE,
+        BoundedPausableExecutor.OverflowPolicy.REJECT,
+        -1,
+        TimeUnit.NANOSECONDS,
+        null,
+        null,
+        instrumentation);
+  }
+
+  /**
+   * Create a {@link BoundedPausableExecutor} that queues at most capacity tasks while paused. Tasks
+   * executed while the queue is full are handled according to the supplied {@link BoundedPausableExecutor.OverflowPolicy}
+   * ({@link BoundedPausableExecutor.OverflowPolicy#BLOCK} blocks until there is room, without a timeout).
+   * @param executor The executor to run tasks on
+   * @param capacity The maximum number of tasks to queue while paused
+   * @param overflowPolicy What to do with tasks executed while the queue is full
+   * @return A new {@link BoundedPausableExecutor}
+   */
+  public static BoundedPausableExecutor queuingExecutor(
+      Executor executor,
+      int capacity,
+      BoundedPausableExecutor.OverflowPolicy overflowPolicy) {
+    return new QueuingPausableExecutor(executor, capacity, overflowPolicy, -1, TimeUnit.NANOSECONDS, null, null, PausableInstrumentation.NONE);
+  }
+
+  /**
+   * Create a {@link BoundedPausableExecutor} that queues at most capacity tasks while paused. Threads
+   * that execute tasks while the queue is full will block until there is room, until we are resumed,
+   * or until the timeout elapses, whichever comes first. On timeout, a
+   * {@link java.util.concurrent.RejectedExecutionException} is thrown.
+   * @param executor The executor to run tasks on
+   * @param capacity The maximum number of tasks to queue while paused
+   * @param blockTimeout How long to block a thread executing a task while the queue is full
+   * @param blockTimeoutUnit The unit of blockTimeout
+   * @return A new {@link BoundedPausableExecutor}
+   */
+  public static BoundedPausableExecutor queuingExecutor(
+      Executor executor,
+      int capacity,
+      long blockTimeout,
+      TimeUnit blockTimeoutUnit) {
+    return new QueuingPausableExecutor(
+        executor,
+        capacity,
+        BoundedPausableExecutor.OverflowPolicy.BLOCK,
+        blockTimeout,
+        blockTimeoutUnit,
+        null,
+        null,
+        PausableInstrumentation.NONE);
+  }
+
+  /**
+   * Create a {@link DrainingPausableExecutor} that queues tasks while paused like {@link #queuingExecutor(Executor)},
+   * but releases the backlog to the supplied executor gradually on resume, according to drainPolicy. Tasks executed
+   * while the backlog is draining are not held behind it.
+   * @param executor The executor to run tasks on
+   * @param drainScheduler The scheduler used to time the release of subsequent batches
+   * @param drainPolicy How quickly to release the backlog
+   * @return A new {@link DrainingPausableExecutor}
+   */
+  public static DrainingPausableExecutor drainingExecutor(
+      Executor executor,
+      ScheduledExecutorService drainScheduler,
+      DrainingPausableExecutor.DrainPolicy drainPolicy) {
+    return drainingExecutor(executor, drainScheduler, drainPolicy, PausableInstrumentation.NONE);
+  }
+
+  /**
+   * Create a {@link DrainingPausableExecutor} like {@link #drainingExecutor(Executor, ScheduledExecutorService, DrainingPausableExecutor.DrainPolicy)}
+   * that reports pause durations, backlog sizes, queued task latency and drain times to instrumentation.
+   * @param executor The executor to run tasks on
+   * @param drainScheduler The scheduler used to time the release of subsequent batches
+   * @param drainPolicy How quickly to release the backlog
+   * @param instrumentation Receives measurements
+   * @return A new {@link DrainingPausableExecutor}
+   */
+  public static DrainingPausableExecutor drainingExecutor(
+      Executor executor,
+      ScheduledExecutorService drainScheduler,
+      DrainingPausableExecutor.DrainPolicy drainPolicy,
+      PausableInstrumentation instrumentation) {
+    return new QueuingPausableExecutor(
+        executor,
+        Integer.MAX_VALUE,
+        BoundedPausableExecutor.OverflowPolicy.REJECT,
+        -1,
+        TimeUnit.NANOSECONDS,
+        drainPolicy,
+        drainScheduler,
+        instrumentation);
+  }
+
+  /**
+   * Create a {@link CancellablePausableExecutor} that runs tasks concurrently on the supplied executor.
+   * Tasks executed while paused (or that are dispatched but haven't started by the time we're
+   * paused) are queued until {@link PausableExecutor#resume()} is called. Unlike
+   * {@link #queuingExecutor(Executor)}, tasks do not run while holding a lock, so the parallelism
+   * of the supplied executor is preserved.
+   * @param executor The executor to run tasks on
+   * @return A new {@link CancellablePausableExecutor}
+   */
+  public static CancellablePausableExecutor concurrentExecutor(Executor executor) {
+    if (executor instanceof ConcurrentPausableExecutor) {
+      return (CancellablePausableExecutor) executor;
+    }
+    return new ConcurrentPausableExecutor(executor);
+  }
+
+  /**
+   * Create a {@link CoalescingPausableExecutor} that runs tasks concurrently on the supplied executor
+   * (see {@link #concurrentExecutor(Executor)}). While paused, only the latest task executed for each
+   * key is kept, so resuming runs one task per key rather than one per call.
+   * @param executor The executor to run tasks on
+   * @return A new {@link CoalescingPausableExecutor}
+   */
+  public static CoalescingPausableExecutor coalescingExecutor(Executor executor) {
+    if (executor instanceof ConcurrentPausableExecutor) {
+      return (CoalescingPausableExecutor) executor;
+    }
+    return new ConcurrentPausableExecutor(executor);
+  }
+
+  /**
+   * Create a {@link PriorityPausableExecutor} that runs tasks concurrently on the supplied executor
+   * (see {@link #concurrentExecutor(Executor)}). Tasks queued while paused are dispatched in priority
+   * order on resume.
+   * @param executor The executor to run tasks on
+   * @return A new {@link PriorityPausableExecutor}
+   */
+  public static PriorityPausableExecutor priorityExecutor(Executor executor) {
+    return new PriorityQueuingPausableExecutor(executor, 0);
+  }
+
+  /**
+   * Create a {@link PriorityPausableExecutor} that runs tasks concurrently on the supplied executor
+   * (see {@link #concurrentExecutor(Executor)}). Tasks queued while paused are dispatched in priority
+   * order on resume. To avoid starvation, a queued task's effective priority rises by one for every
+   * agingInterval that it waits.
+   * @param executor The executor to run tasks on
+   * @param agingInterval The time it takes a waiting task to gain one priority level
+   * @param agingIntervalUnit The unit of agingInterval
+   * @return A new {@link PriorityPausableExecutor}
+   */
+  public static PriorityPausableExecutor priorityExecutor(Executor executor, long agingInterval, TimeUnit agingIntervalUnit) {
+    return new PriorityQueuingPausableExecutor(executor, agingIntervalUnit.toNanos(agingInterval));
+  }
+
+  /**
+   * Create a {@link PauseGate} that lets several independent owners hold the supplied pausable
+   * paused. It is paused when the first token is acquired and resumed when the last one is disposed.
+   * @param pausable The {@link Pausable} to control (usually a {@link PausableManager})
+   * @return A new {@link PauseGate}
+   */
+  public static PauseGate pauseGate(Pausable pausable) {
+    return new CountingPauseGate(pausable);
+  }
+
+  /**
+   * Wrap the supplied pausable so that a burst of pause / resume calls is coalesced, and only the net
+   * change (if any) is forwarded once no calls have been made for window. Windows are timed on a single
+   * daemon thread shared by all debounced pausables, and the supplied pausable is called on that thread.
+   * Use {@link #debounce(Pausable, long, TimeUnit, ScheduledExecutorService, Executor)} if it must be
+   * called on a particular thread.
+   * @param pausable The {@link Pausable} to debounce
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @return A debounced {@link DisposablePausable}, disposing it drops any calls that haven't been forwarded yet
+   */
+  public static DisposablePausable debounce(Pausable pausable, long window, TimeUnit windowUnit) {
+    return debounce(pausable, window, windowUnit, DebounceTimer.INSTANCE);
+  }
+
+  /**
+   * Wrap the supplied pausable so that a burst of pause / resume calls is coalesced, and only the net
+   * change (if any) is forwarded once no calls have been made for window. The supplied pausable is
+   * called on timer's thread(s).
+   * @param pausable The {@link Pausable} to debounce
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @param timer The scheduler used to time windows (may be shared)
+   * @return A debounced {@link DisposablePausable}, disposing it drops any calls that haven't been forwarded yet
+   */
+  public static DisposablePausable debounce(Pausable pausable, long window, TimeUnit windowUnit, ScheduledExecutorService timer) {
+    return new DebouncedPausable(pausable, windowUnit.toNanos(window), timer, null);
+  }
+
+  /**
+   * Wrap the supplied pausable so that a burst of pause / resume calls is coalesced, and only the net
+   * change (if any) is forwarded once no calls have been made for window. The supplied pausable is
+   * called on callbackExecutor (e.g. an executor that posts to the Android main thread).
+   * @param pausable The {@link Pausable} to debounce
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @param timer The scheduler used to time windows (may be shared)
+   * @param callbackExecutor The executor to call pausable on
+   * @return A debounced {@link DisposablePausable}, disposing it drops any calls that haven't been forwarded yet
+   */
+  public static DisposablePausable debounce(
+      Pausable pausable,
+      long window,
+      TimeUnit windowUnit,
+      ScheduledExecutorService timer,
+      Executor callbackExecutor) {
+    return new DebouncedPausable(pausable, windowUnit.toNanos(window), timer, callbackExecutor);
+  }
+
+  /**
+   * Create a new {@link PausableManager} that debounces its own pause / resume calls (see
+   * {@link #debounce(Pausable, long, TimeUnit)}), so its children only see net state changes.
+   * Children are called on the shared debounce thread.
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @return A new (and empty) debounced {@link PausableManager}
+   */
+  public static PausableManager newDebouncedManager(long window, TimeUnit windowUnit) {
+    return newDebouncedManager(window, windowUnit, DebounceTimer.INSTANCE);
+  }
+
+  /**
+   * Create a new {@link PausableManager} that debounces its own pause / resume calls (see
+   * {@link #debounce(Pausable, long, TimeUnit, ScheduledExecutorService)}), so its children only
+   * see net state changes. Children are called on timer's thread(s).
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @param timer The scheduler used to time windows (may be shared)
+   * @return A new (and empty) debounced {@link PausableManager}
+   */
+  public static PausableManager newDebouncedManager(long window, TimeUnit windowUnit, ScheduledExecutorService timer) {
+    return new DebouncedPausable.Manager(newManager(), windowUnit.toNanos(window), timer, null);
+  }
+
+  /**
+   * Create a new {@link PausableManager} that debounces its own pause / resume calls (see
+   * {@link #debounce(Pausable, long, TimeUnit, ScheduledExecutorService, Executor)}), so its children
+   * only see net state changes. Children are called on callbackExecutor.
+   * @param window How long to wait after the last pause / resume call
+   * @param windowUnit The unit of window
+   * @param timer The scheduler used to time windows (may be shared)
+   * @param callbackExecutor The executor to call children on
+   * @return A new (and empty) debounced {@link PausableManager}
+   */
+  public static PausableManager newDebouncedManager(
+      long window,
+      TimeUnit windowUnit,
+      ScheduledExecutorService timer,
+      Executor callbackExecutor) {
+    return new DebouncedPausable.Manager(newManager(), windowUnit.toNanos(window), timer, callbackExecutor);
+  }
+
+  /**
+   * Create a {@link PausableScheduledExecutorService} that runs tasks on the supplied executor. Pending
+   * delays are frozen while paused. Scheduled tasks are timed by a single daemon thread, which is started
+   * along with the first scheduled task.
+   * @param executor The executor to run tasks on
+   * @return A new {@link PausableScheduledExecutorService}
+   */
+  public static PausableScheduledExecutorService scheduledExecutor(Executor executor) {
+    return scheduledExecutor(executor, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "PausableScheduledExecutor-timer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Create a {@link PausableScheduledExecutorService} that runs tasks on the supplied executor. Pending
+   * delays are frozen while paused.
+   * @param executor The executor to run tasks on
+   * @param timerThreadFactory Creates the thread that times scheduled tasks (it never runs them itself)
+   * @return A new {@link PausableScheduledExecutorService}
+   */
+  public static PausableScheduledExecutorService scheduledExecutor(Executor executor, ThreadFactory timerThreadFactory) {
+    return new PausableScheduledExecutor(executor, timerThreadFactory);
+  }
+
+  // lazily creates the timer shared by debounced pausables that aren't given one
+  private static class DebounceTimer {
+    static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Pausables-debounce");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
   private static class WeakDisposablePausable<V> implements CheckedDisposablePausable {
 
     final WeakReference<V> mWeakReference;
@@ -86,25 +434,55 @@ public class Pausables {
     }
   }
 
-  private static class BasicPausableManager extends AbstractDelegateDisposable<List<Pausable>> implements PausableManager, HasDisposables {
+  private static class BasicPausableManager extends AbstractDelegateDisposable<List<Pausable>> implements PausableManager, HasDisposables, DisposeListener {
+
+    // pausables are paused / resumed while we hold our lock, so we use a ReentrantLock
+    // instead of our monitor to avoid pinning virtual threads when they block.
+    private final Lock mLock = new ReentrantLock();
+    private boolean mIsIterating = false;
 
     public BasicPausableManager(@Nullable Collection<Pausable> prefill) {
       super(prefill == null ? new LinkedList<Pausable>() : new LinkedList<Pausable>(prefill));
+      if (prefill != null) {
+        for (Pausable pausable : prefill) {
+          listenTo(pausable);
+        }
+      }
     }
 
     @Override
-    public synchronized void addPausable(Pausable pausable) {
-      getDelegateOrThrow().add(pausable);
+    public void addPausable(Pausable pausable) {
+      mLock.lock();
+      try {
+        getDelegateOrThrow().add(pausable);
+      } finally {
+        mLock.unlock();
+      }
+      listenTo(pausable);
     }
 
     @Override
-    public synchronized void pause() {
-      MaybePausables.pauseList(getDelegateOrThrow());
+    public void pause() {
+      mLock.lock();
+      mIsIterating = true;
+      try {
+        MaybePausables.pauseList(getDelegateOrThrow());
+      } finally {
+        mIsIterating = false;
+        mLock.unlock();
+      }
     }
 
     @Override
-    public synchronized void resume() {
-      MaybePausables.resumeList(getDelegateOrThrow());
+    public void resume() {
+      mLock.lock();
+      mIsIterating = true;
+      try {
+        MaybePausables.resumeList(getDelegateOrThrow());
+      } finally {
+        mIsIterating = false;
+        mLock.unlock();
+      }
     }
 
     @Override
@@ -113,9 +491,14 @@ public class Pausables {
         return true;
       }
 
-      synchronized (this) {
+      mLock.lock();
+      mIsIterating = true;
+      try {
         MaybeDisposables.flushList(getDelegateOrNull());
         return isMarkedDisposed();
+      } finally {
+        mIsIterating = false;
+        mLock.unlock();
       }
     }
 
@@ -123,114 +506,97 @@ public class Pausables {
     public void dispose() {
       markDisposed();
     }
-  }
-
-  private static class BasicPausableDisposableManager implements PausableDisposableManager {
-    private final DisposableManager mDisposableManager = Disposables.newManager();
-    private final BasicPausableManager mPausableManager = new BasicPausableManager(null);
 
     @Override
-    public synchronized void addDisposable(Disposable disposable) {
-      mDisposableManager.addDisposable(disposable);
-      if (disposable instanceof Pausable) {
-        mPausableManager.addPausable((Pausable) disposable);
+    public void onDisposed(Disposable disposable) {
+      mLock.lock();
+      try {
+        // if we're iterating on this thread, the disposable will be removed by the next flush
+        List<Pausable> pausables = getDelegateOrNull();
+        if (pausables != null && !mIsIterating) {
+          pausables.remove(disposable);
+        }
+      } finally {
+        mLock.unlock();
       }
     }
 
-    @Override
-    public synchronized void addPausable(Pausable pausable) {
-      mPausableManager.addPausable(pausable);
-      if (pausable instanceof Disposable) {
-        mDisposableManager.addDisposable((Disposable) pausable);
+    private void listenTo(Pausable pausable) {
+      if (pausable instanceof ListenableDisposable) {
+        ((ListenableDisposable) pausable).addDisposeListener(this);
       }
     }
+  }
 
-    @Override
-    public synchronized void pause() {
-      mPausableManager.pause();
-    }
-
-    @Override
-    public synchronized void resume() {
-      mPausableManager.resume();
-    }
+  private static class BasicPausableDisposableManager implements PausableDisposableManager {
+    private final Lock mLock = new ReentrantLock();
+    private final DisposableManager mDisposableManager = Disposables.newManager();
+    private final BasicPausableManager mPausableManager = new BasicPausableManager(null);
 
     @Override
-    public synchronized boolean flushDisposed() {
-      return mPausableManager.flushDisposed() && mDisposableManager.flushDisposed();
+    public void addDisposable(Disposable disposable) {
+      mLock.lock();
+      try {
+        mDisposableManager.addDisposable(disposable);
+        if (disposable instanceof Pausable) {
+          mPausableManager.addPausable((Pausable) disposable);
+        }
+      } finally {
+        mLock.unlock();
+      }
     }
 
     @Override
-    public synchronized void dispose() {
-      mPausableManager.dispose();
-      mDisposableManager.dispose();
-    }
-  }
-
-  private static class QueuingPausableExecutor implements PausableExecutor {
-
-    transient volatile boolean mPaused = false;
-    final Executor mDelegate;
-    final List<PausableRunnable> mRunnables = new LinkedList<>();
-
-    QueuingPausableExecutor(Executor delegate) {
-      mDelegate = delegate;
+    public void addPausable(Pausable pausable) {
+      mLock.lock();
+      try {
+        mPausableManager.addPausable(pausable);
+        if (pausable instanceof Disposable) {
+          mDisposableManager.addDisposable((Disposable) pausable);
+        }
+      } finally {
+        mLock.unlock();
+      }
     }
 
     @Override
     public void pause() {
-      synchronized (this) {
-        mPaused = true;
+      mLock.lock();
+      try {
+        mPausableManager.pause();
+      } finally {
+        mLock.unlock();
       }
     }
 
     @Override
     public void resume() {
-      List<PausableRunnable> runnables;
-      synchronized (this) {
-        mPaused = false;
-
-        if (mRunnables.isEmpty()) {
-          return;
-        }
-
-        runnables = new LinkedList<>(mRunnables);
-        mRunnables.clear();
-      }
-      for (PausableRunnable runnable : runnables) {
-        mDelegate.execute(runnable);
+      mLock.lock();
+      try {
+        mPausableManager.resume();
+      } finally {
+        mLock.unlock();
       }
     }
 
     @Override
-    public void execute(Runnable command) {
-      PausableRunnable pausableRunnable = new PausableRunnable(command);
-      synchronized (this) {
-        if (mPaused) {
-          mRunnables.add(pausableRunnable);
-          return;
-        }
+    public boolean flushDisposed() {
+      mLock.lock();
+      try {
+        return mPausableManager.flushDisposed() && mDisposableManager.flushDisposed();
+      } finally {
+        mLock.unlock();
       }
-      mDelegate.execute(pausableRunnable);
     }
 
-    class PausableRunnable implements Runnable {
-
-      final Runnable mRunnable;
-
-      PausableRunnable(Runnable runnable) {
-        mRunnable = runnable;
-      }
-
-      @Override
-      public void run() {
-        synchronized (QueuingPausableExecutor.this) {
-          if (mPaused) {
-            mRunnables.add(PausableRunnable.this);
-          } else {
-            mRunnable.run();
-          }
-        }
+    @Override
+    public void dispose() {
+      mLock.lock();
+      try {
+        mPausableManager.dispose();
+        mDisposableManager.dispose();
+      } finally {
+        mLock.unlock();
       }
     }
   }
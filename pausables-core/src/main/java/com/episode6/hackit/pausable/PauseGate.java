@@ -0,0 +1,28 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+/**
+ * A reference counted pause for a {@link Pausable} with several independent owners. Each owner
+ * that wants the pausable paused acquires a token, and the pausable is only resumed once every
+ * token has been disposed.
+ *
+ * The underlying pausable is paused when the count goes from 0 to 1 and resumed when it goes from
+ * 1 back to 0. Calls to it are serialized and always alternate, but they may be made on whichever
+ * thread is currently applying a transition, so {@link #acquirePause()} can return before the
+ * underlying {@link Pausable#pause()} has run if another thread is mid-transition.
+ */
+public interface PauseGate {
+
+  /**
+   * Hold the underlying pausable paused until the returned token is disposed. Disposing
+   * a token more than once has no effect.
+   * @return A {@link CheckedDisposable} token that releases this hold when disposed.
+   */
+  CheckedDisposable acquirePause();
+
+  /**
+   * @return The number of tokens that are currently held
+   */
+  int getPauseCount();
+}
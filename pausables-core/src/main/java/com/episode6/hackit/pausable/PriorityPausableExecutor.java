@@ -0,0 +1,31 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+/**
+ * A {@link PausableExecutor} that accepts a priority per task. Tasks queued while paused
+ * are dispatched in priority order (highest first) on {@link #resume()}.
+ */
+public interface PriorityPausableExecutor extends CancellablePausableExecutor {
+
+  /**
+   * The priority assigned to tasks passed to {@link #execute(Runnable)}
+   */
+  int DEFAULT_PRIORITY = 0;
+
+  /**
+   * Execute a task with the given priority.
+   * @param priority The priority of the task, higher priorities are dispatched first.
+   * @param command The task to execute
+   */
+  void execute(int priority, Runnable command);
+
+  /**
+   * Same as {@link #execute(int, Runnable)}, but returns a handle that can cancel the task
+   * (see {@link #submit(Runnable)}).
+   * @param priority The priority of the task, higher priorities are dispatched first.
+   * @param command The task to execute
+   * @return A {@link CheckedDisposable} handle for the task
+   */
+  CheckedDisposable submit(int priority, Runnable command);
+}
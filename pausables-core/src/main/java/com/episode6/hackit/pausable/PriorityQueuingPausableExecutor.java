@@ -0,0 +1,196 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PriorityPausableExecutor} that keeps its paused backlog in a heap. Like
+ * {@link ConcurrentPausableExecutor}, tasks never run while holding a lock.
+ *
+ * To avoid starving low priority tasks, a queued task's effective priority rises by one for
+ * every mAgingNanos it has been waiting. Since every task ages at the same rate, the order of
+ * two tasks never changes while they wait, so the heap can be keyed on a fixed rank of
+ * (priority - submitTime / mAgingNanos) instead of being re-sorted on resume.
+ *
+ * Removing an arbitrary task from the heap is linear, so tasks cancelled while queued are left in
+ * place (with their delegate released) and skipped on resume. The heap is compacted once cancelled
+ * tasks make up half of it, which keeps cancellation amortized constant time.
+ */
+class PriorityQueuingPausableExecutor implements PriorityPausableExecutor {
+
+  private static final Comparator<PausableRunnable> RANK_COMPARATOR = new Comparator<PausableRunnable>() {
+    @Override
+    public int compare(PausableRunnable r1, PausableRunnable r2) {
+      int rank = Double.compare(r2.mRank, r1.mRank);
+      if (rank != 0) {
+        return rank;
+      }
+      return r1.mSequence < r2.mSequence ? -1 : (r1.mSequence == r2.mSequence ? 0 : 1);
+    }
+  };
+
+  private transient volatile boolean mPaused = false;
+  private final Executor mDelegate;
+  private final long mAgingNanos;
+  private final long mOriginNanos = System.nanoTime();
+  private final AtomicLong mSequence = new AtomicLong();
+
+  // guards mRunnables only, never held while running a task
+  private final Lock mLock = new ReentrantLock();
+  private final PriorityQueue<PausableRunnable> mRunnables = new PriorityQueue<>(11, RANK_COMPARATOR);
+  private int mCancelledCount = 0;
+
+  /**
+   * @param agingNanos the time it takes a waiting task to gain one priority level, or 0 to disable aging
+   */
+  PriorityQueuingPausableExecutor(Executor delegate, long agingNanos) {
+    if (agingNanos < 0) {
+      throw new IllegalArgumentException("agingNanos must not be negative: " + agingNanos);
+    }
+    mDelegate = delegate;
+    mAgingNanos = agingNanos;
+  }
+
+  @Override
+  public void pause() {
+    mPaused = true;
+  }
+
+  @Override
+  public void resume() {
+    List<PausableRunnable> runnables;
+    mLock.lock();
+    try {
+      mPaused = false;
+
+      if (mRunnables.isEmpty()) {
+        return;
+      }
+
+      runnables = new ArrayList<>(mRunnables.size() - mCancelledCount);
+      while (!mRunnables.isEmpty()) {
+        PausableRunnable runnable = mRunnables.poll();
+        runnable.mQueued = false;
+        if (!runnable.isDisposed()) {
+          runnables.add(runnable);
+        }
+      }
+      mCancelledCount = 0;
+    } finally {
+      mLock.unlock();
+    }
+    for (PausableRunnable runnable : runnables) {
+      mDelegate.execute(runnable);
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submit(DEFAULT_PRIORITY, command);
+  }
+
+  @Override
+  public void execute(int priority, Runnable command) {
+    submit(priority, command);
+  }
+
+  @Override
+  public CheckedDisposable submit(Runnable command) {
+    return submit(DEFAULT_PRIORITY, command);
+  }
+
+  @Override
+  public CheckedDisposable submit(int priority, Runnable command) {
+    PausableRunnable pausableRunnable = new PausableRunnable(priority, command);
+    if (!queueIfPaused(pausableRunnable)) {
+      mDelegate.execute(pausableRunnable);
+    }
+    return pausableRunnable;
+  }
+
+  /**
+   * @return true if we're paused and the runnable was queued, false if it should run now.
+   */
+  private boolean queueIfPaused(PausableRunnable runnable) {
+    if (!mPaused) {
+      return false;
+    }
+
+    mLock.lock();
+    try {
+      // re-check under the lock so we can't queue a runnable after resume() has drained the queue
+      if (!mPaused) {
+        return false;
+      }
+      if (!runnable.isDisposed()) {
+        runnable.mQueued = true;
+        mRunnables.add(runnable);
+      }
+      return true;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock. Rebuilds the heap without its cancelled tasks.
+   */
+  private void compact() {
+    List<PausableRunnable> live = new ArrayList<>(mRunnables.size() - mCancelledCount);
+    for (PausableRunnable runnable : mRunnables) {
+      if (runnable.isDisposed()) {
+        runnable.mQueued = false;
+      } else {
+        live.add(runnable);
+      }
+    }
+    mRunnables.clear();
+    mRunnables.addAll(live);
+    mCancelledCount = 0;
+  }
+
+  private class PausableRunnable extends PausableTask {
+
+    final double mRank;
+    final long mSequence;
+    boolean mQueued = false; // guarded by mLock
+
+    PausableRunnable(int priority, Runnable runnable) {
+      super(runnable);
+      mRank = mAgingNanos == 0 ? priority : priority - (System.nanoTime() - mOriginNanos) / (double) mAgingNanos;
+      mSequence = PriorityQueuingPausableExecutor.this.mSequence.getAndIncrement();
+    }
+
+    @Override
+    public void run() {
+      // re-queued runnables keep their original rank, so they've aged while waiting
+      if (!isMarkedDisposed() && !queueIfPaused(this)) {
+        runNow();
+      }
+    }
+
+    @Override
+    void onCancelled() {
+      mLock.lock();
+      try {
+        if (!mQueued) {
+          return;
+        }
+        mCancelledCount++;
+        if (mCancelledCount * 2 >= mRunnables.size()) {
+          compact();
+        }
+      } finally {
+        mLock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,538 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableExecutor} that queues tasks while paused and runs them one at a time.
+ *
+ * The queue holds at most mCapacity tasks executed while paused, beyond that the {@link OverflowPolicy}
+ * applies. Tasks that were already passed to the delegate when we were paused are re-queued regardless
+ * of capacity, since they have already been accepted.
+ *
+ * If a {@link DrainPolicy} is supplied, the backlog is released gradually on resume, with subsequent
+ * batches scheduled on mDrainScheduler. Tasks executed while draining go straight to the delegate.
+ *
+ * The backlog is a lock-free queue, so producers never take mLock unless they have to wait for room
+ * (the BLOCK policy). Draining is serialized by mDrainWip instead of a lock, and since a producer can
+ * queue a task just after resume() has drained, producers re-check mPaused after queuing and drain
+ * themselves if needed. mLock is only held to run a task (tasks are still run one at a time) and by
+ * pause(), so that pause() waits for a running task to finish.
+ *
+ * A task whose handle is disposed while it's queued is released in constant time, and its (now empty)
+ * queue node is skipped when the backlog is drained. So that a loop that submits and cancels while
+ * paused can't grow the backlog without bound, cancelled nodes are swept out of the queue as soon as
+ * they outnumber the live ones (so the queue never holds more than twice the live tasks, plus one).
+ *
+ * Measurements are only taken if we're given a {@link PausableInstrumentation} other than
+ * {@link PausableInstrumentation#NONE}.
+ */
+class QueuingPausableExecutor implements BoundedPausableExecutor, DrainingPausableExecutor {
+
+  private static final long NO_TIMEOUT = -1;
+
+  // PausableRunnable.mQueued states
+  private static final int NOT_QUEUED = 0;
+  private static final int QUEUED = 1;
+  private static final int QUEUED_CANCELLED = 2;
+
+  private static final AtomicIntegerFieldUpdater<PausableRunnable> QUEUED_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(PausableRunnable.class, "mQueued");
+
+  transient volatile boolean mPaused = false;
+  final Executor mDelegate;
+  final Queue<PausableRunnable> mRunnables = new ConcurrentLinkedQueue<>();
+
+  final int mCapacity;
+  final OverflowPolicy mOverflowPolicy;
+  final long mBlockTimeoutNanos;
+  final AtomicInteger mQueuedCount = new AtomicInteger();
+  // cancelled tasks whose nodes are still in mRunnables
+  final AtomicInteger mCancelledCount = new AtomicInteger();
+  final AtomicLong mDroppedCount = new AtomicLong();
+
+  final @Nullable DrainPolicy mDrainPolicy;
+  final @Nullable ScheduledExecutorService mDrainScheduler;
+  final Runnable mDrainTick = new Runnable() {
+    @Override
+    public void run() {
+      drainTick();
+    }
+  };
+  final AtomicInteger mDrainWip = new AtomicInteger();
+  transient volatile boolean mDrainScheduled = false;
+  transient volatile long mDrainedCount = 0;
+
+  final PausableInstrumentation mInstrumentation;
+  final boolean mInstrumented;
+  final AtomicInteger mBacklogHighWaterMark = new AtomicInteger();
+  transient volatile long mPausedAtNanos = 0;
+  // set by resume() when there's a backlog to time, cleared by the drain that empties it
+  transient volatile long mDrainStartNanos = 0;
+  transient volatile long mDrainStartCount = 0;
+
+  // tasks run while holding this lock, so it must be a ReentrantLock rather than
+  // our monitor, otherwise a blocking task would pin its virtual thread's carrier.
+  final Lock mLock = new ReentrantLock();
+  final Condition mNotFull = mLock.newCondition();
+
+  QueuingPausableExecutor(Executor delegate) {
+    this(delegate, Integer.MAX_VALUE, OverflowPolicy.REJECT, NO_TIMEOUT, TimeUnit.NANOSECONDS, null, null, PausableInstrumentation.NONE);
+  }
+
+  QueuingPausableExecutor(
+      Executor delegate,
+      int capacity,
+      OverflowPolicy overflowPolicy,
+      long blockTimeout,
+      TimeUnit blockTimeoutUnit,
+      @Nullable DrainPolicy drainPolicy,
+      @Nullable ScheduledExecutorService drainScheduler,
+      PausableInstrumentation instrumentation) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    mDelegate = delegate;
+    mCapacity = capacity;
+    mOverflowPolicy = overflowPolicy;
+    mBlockTimeoutNanos = blockTimeout < 0 ? NO_TIMEOUT : blockTimeoutUnit.toNanos(blockTimeout);
+    mDrainPolicy = drainPolicy;
+    mDrainScheduler = drainScheduler;
+    mInstrumentation = instrumentation;
+    mInstrumented = instrumentation != PausableInstrumentation.NONE;
+  }
+
+  @Override
+  public void pause() {
+    mLock.lock();
+    try {
+      if (mInstrumented && !mPaused) {
+        mPausedAtNanos = System.nanoTime();
+        mBacklogHighWaterMark.set(mQueuedCount.get());
+      }
+      mPaused = true;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void resume() {
+    boolean wasPaused = mPaused;
+    mPaused = false;
+    if (mInstrumented && wasPaused) {
+      long now = System.nanoTime();
+      mDrainStartCount = mDrainedCount;
+      mDrainStartNanos = mQueuedCount.get() > 0 ? now : 0;
+      mInstrumentation.onResumed(now - mPausedAtNanos, mBacklogHighWaterMark.get());
+    }
+    signalNotFull();
+    drain();
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submit(command);
+  }
+
+  @Override
+  public CheckedDisposable submit(Runnable command) {
+    PausableRunnable pausableRunnable = new PausableRunnable(command);
+    if (mPaused && offerWhilePaused(pausableRunnable)) {
+      if (!mPaused) {
+        // resume() may have drained before our task was queued
+        drain();
+      }
+    } else {
+      mDelegate.execute(pausableRunnable);
+    }
+    return pausableRunnable;
+  }
+
+  @Override
+  public int getCapacity() {
+    return mCapacity;
+  }
+
+  @Override
+  public int getQueuedCount() {
+    return mQueuedCount.get();
+  }
+
+  @Override
+  public long getDroppedCount() {
+    return mDroppedCount.get();
+  }
+
+  @Override
+  public boolean isDraining() {
+    return mDrainScheduled;
+  }
+
+  @Override
+  public long getDrainedCount() {
+    return mDrainedCount;
+  }
+
+  /**
+   * Dispatch the next batch of the backlog (or the whole backlog if we have no drain policy).
+   * Safe to call from any thread: only one thread drains at a time, and a call made while another
+   * thread is draining makes that thread go around again.
+   *
+   * If the delegate rejects a task, that task is discarded, the rest of its batch goes back on the
+   * backlog, and the exception is rethrown once we've stopped draining, so the next drain (e.g. the
+   * next resume()) picks up where we left off.
+   */
+  private void drain() {
+    if (mDrainWip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    try {
+      do {
+        List<PausableRunnable> runnables = takeBatch();
+        for (int i = 0; i < runnables.size(); i++) {
+          try {
+            mDelegate.execute(runnables.get(i));
+          } catch (RuntimeException | Error e) {
+            requeue(runnables.subList(i + 1, runnables.size()));
+            runnables.get(i).discard();
+            throw e;
+          }
+        }
+        scheduleNextBatch();
+        if (mInstrumented) {
+          checkBacklogDrained();
+        }
+        missed = mDrainWip.addAndGet(-missed);
+      } while (missed != 0);
+    } finally {
+      if (missed != 0) {
+        // we threw, stop draining so we don't wedge every drain after us
+        mDrainWip.set(0);
+      }
+    }
+  }
+
+  /**
+   * Must only be called from {@link #drain()}. Removes the next batch of runnables from the backlog.
+   */
+  private List<PausableRunnable> takeBatch() {
+    int batchSize = mDrainPolicy == null ? Integer.MAX_VALUE : mDrainPolicy.mBatchSize;
+    List<PausableRunnable> runnables = new ArrayList<>();
+    PausableRunnable runnable;
+    while (runnables.size() < batchSize && !mPaused && (runnable = pollLive()) != null) {
+      runnables.add(runnable);
+    }
+    mDrainedCount += runnables.size();
+
+    if (!runnables.isEmpty()) {
+      // wake producers blocked on a full queue in case we get paused again before they run
+      signalNotFull();
+    }
+    return runnables;
+  }
+
+  /**
+   * Must only be called from {@link #drain()}. Puts runnables that were taken from the backlog
+   * but never reached the delegate back on it.
+   */
+  private void requeue(List<PausableRunnable> runnables) {
+    mDrainedCount -= runnables.size();
+    for (PausableRunnable runnable : runnables) {
+      recordBacklog(mQueuedCount.incrementAndGet());
+      enqueue(runnable);
+    }
+  }
+
+  /**
+   * Must only be called from {@link #drain()}. Schedules the next drain tick if anything is left over.
+   */
+  private void scheduleNextBatch() {
+    if (mDrainPolicy != null && !mPaused && !mDrainScheduled && mQueuedCount.get() > 0) {
+      mDrainScheduled = true;
+      try {
+        mDrainScheduler.schedule(mDrainTick, mDrainPolicy.mIntervalNanos, TimeUnit.NANOSECONDS);
+      } catch (RuntimeException | Error e) {
+        mDrainScheduled = false;
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Must only be called from {@link #drain()}. Reports the drain started by the last resume()
+   * once the backlog is empty.
+   */
+  private void checkBacklogDrained() {
+    long drainStartNanos = mDrainStartNanos;
+    if (drainStartNanos == 0) {
+      return;
+    }
+    if (mPaused) {
+      // paused again before the backlog emptied, the next resume starts a new measurement
+      mDrainStartNanos = 0;
+    } else if (mQueuedCount.get() == 0) {
+      mDrainStartNanos = 0;
+      mInstrumentation.onBacklogDrained((int) (mDrainedCount - mDrainStartCount), System.nanoTime() - drainStartNanos);
+    }
+  }
+
+  private void drainTick() {
+    mDrainScheduled = false;
+    if (!mPaused) {
+      drain();
+    }
+  }
+
+  /**
+   * Poll the backlog until we find a task that hasn't been cancelled or dropped.
+   */
+  private @Nullable PausableRunnable pollLive() {
+    PausableRunnable runnable;
+    while ((runnable = mRunnables.poll()) != null) {
+      if (unqueue(runnable)) {
+        return runnable;
+      }
+      releaseCancelled(runnable);
+    }
+    return null;
+  }
+
+  /**
+   * Unlink every cancelled node from the backlog.
+   */
+  private void sweepCancelled() {
+    for (Iterator<PausableRunnable> iterator = mRunnables.iterator(); iterator.hasNext();) {
+      if (releaseCancelled(iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Queue a runnable executed while paused, applying our {@link OverflowPolicy} if the queue is full.
+   * @return true if the runnable was queued or dropped, false if we were resumed
+   * while waiting for room and it should be executed immediately.
+   */
+  private boolean offerWhilePaused(PausableRunnable runnable) {
+    while (true) {
+      int count = mQueuedCount.get();
+      if (count < mCapacity) {
+        if (mQueuedCount.compareAndSet(count, count + 1)) {
+          recordBacklog(count + 1);
+          enqueue(runnable);
+          return true;
+        }
+        continue;
+      }
+
+      switch (mOverflowPolicy) {
+        case DROP_OLDEST:
+          PausableRunnable oldest = pollLive();
+          if (oldest != null) {
+            mDroppedCount.incrementAndGet();
+            oldest.discard();
+          }
+          break;
+        case DROP_NEWEST:
+          mDroppedCount.incrementAndGet();
+          runnable.discard();
+          return true;
+        case BLOCK:
+          if (!awaitRoom()) {
+            throw reject();
+          }
+          if (!mPaused) {
+            return false;
+          }
+          break;
+        default:
+          throw reject();
+      }
+    }
+  }
+
+  /**
+   * @return true if we're no longer paused or there is room in the queue, false on timeout or interrupt.
+   */
+  private boolean awaitRoom() {
+    long remainingNanos = mBlockTimeoutNanos;
+    mLock.lock();
+    try {
+      while (mPaused && mQueuedCount.get() >= mCapacity) {
+        if (mBlockTimeoutNanos == NO_TIMEOUT) {
+          mNotFull.await();
+        } else if (remainingNanos <= 0) {
+          return false;
+        } else {
+          remainingNanos = mNotFull.awaitNanos(remainingNanos);
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private void signalNotFull() {
+    if (mOverflowPolicy != OverflowPolicy.BLOCK) {
+      return;
+    }
+    mLock.lock();
+    try {
+      mNotFull.signalAll();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private RejectedExecutionException reject() {
+    mDroppedCount.incrementAndGet();
+    return new RejectedExecutionException("Paused executor queue is full (capacity " + mCapacity + ")");
+  }
+
+  private void recordBacklog(int queuedCount) {
+    if (!mInstrumented) {
+      return;
+    }
+    int highWaterMark;
+    while ((highWaterMark = mBacklogHighWaterMark.get()) < queuedCount
+        && !mBacklogHighWaterMark.compareAndSet(highWaterMark, queuedCount)) {}
+  }
+
+  /**
+   * Add a runnable to the backlog, the caller must have already counted it in mQueuedCount.
+   */
+  private void enqueue(PausableRunnable runnable) {
+    if (mInstrumented && runnable.mQueuedAtNanos == 0) {
+      runnable.mQueuedAtNanos = System.nanoTime();
+    }
+    QUEUED_STATE.set(runnable, QUEUED);
+    mRunnables.offer(runnable);
+  }
+
+  /**
+   * Claim a queued runnable, so exactly one of drain, drop or cancel removes it from mQueuedCount.
+   * @return true if the runnable was queued and we claimed it.
+   */
+  private boolean unqueue(PausableRunnable runnable) {
+    if (QUEUED_STATE.compareAndSet(runnable, QUEUED, NOT_QUEUED)) {
+      mQueuedCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Claim a queued runnable that has been cancelled, leaving its node in the backlog to be skipped
+   * by the drain (or unlinked by a sweep).
+   * @return true if the runnable was queued and we claimed it.
+   */
+  private boolean unqueueCancelled(PausableRunnable runnable) {
+    if (!QUEUED_STATE.compareAndSet(runnable, QUEUED, QUEUED_CANCELLED)) {
+      return false;
+    }
+    int queuedCount = mQueuedCount.decrementAndGet();
+    if (mCancelledCount.incrementAndGet() > queuedCount) {
+      sweepCancelled();
+    }
+    return true;
+  }
+
+  /**
+   * Release the node of a cancelled runnable, so exactly one of drain or sweep removes it from mCancelledCount.
+   * @return true if the runnable's node was cancelled and we released it.
+   */
+  private boolean releaseCancelled(PausableRunnable runnable) {
+    if (QUEUED_STATE.compareAndSet(runnable, QUEUED_CANCELLED, NOT_QUEUED)) {
+      mCancelledCount.decrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  class PausableRunnable extends PausableTask {
+
+    volatile int mQueued = NOT_QUEUED;
+    // when we were first queued, only set if mInstrumented
+    volatile long mQueuedAtNanos = 0;
+
+    PausableRunnable(Runnable runnable) {
+      super(runnable);
+    }
+
+    @Override
+    public void run() {
+      if (isMarkedDisposed()) {
+        return;
+      }
+
+      boolean started = false;
+      boolean requeued = false;
+      long queuedNanos = 0;
+      mLock.lock();
+      try {
+        if (!mPaused) {
+          if (mQueuedAtNanos != 0) {
+            queuedNanos = System.nanoTime() - mQueuedAtNanos;
+          }
+          started = true;
+          runHeld();
+        } else {
+          recordBacklog(mQueuedCount.incrementAndGet());
+          enqueue(PausableRunnable.this);
+          requeued = true;
+        }
+      } finally {
+        mLock.unlock();
+        if (started) {
+          // our dispose listeners may take their own locks (e.g. a manager that's calling
+          // pause() on us), so they must not be notified while we hold mLock
+          discard();
+        }
+      }
+
+      if (queuedNanos != 0) {
+        mInstrumentation.onQueuedTaskStarted(queuedNanos);
+      }
+
+      if (requeued) {
+        if (isMarkedDisposed()) {
+          // we may have been cancelled before we were re-queued
+          unqueueCancelled(PausableRunnable.this);
+        }
+        if (!mPaused) {
+          drain();
+        }
+      }
+    }
+
+    @Override
+    void onCancelled() {
+      if (unqueueCancelled(PausableRunnable.this)) {
+        signalNotFull();
+      }
+    }
+  }
+}
@@ -0,0 +1,264 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PausableDisposableManager} that stores each child once, in a single array, alongside a
+ * bitmask of what it can do (pause, dispose, be flushed). Every operation takes a single lock, and
+ * pause / resume / dispose / flush skip children that don't have the relevant capability without
+ * any instanceof checks.
+ *
+ * Children are copied out under the lock and called after it's released, so a child that's removed
+ * (or disposed) while we're pausing / resuming may still receive that one call. Pauses and resumes
+ * are serialized by a separate transition lock, so children never see them interleaved.
+ */
+class UnifiedPausableDisposableManager implements PausableDisposableManager, DisposeListener {
+
+  private static final byte PAUSABLE = 1;
+  private static final byte DISPOSABLE = 1 << 1;
+  private static final byte FLUSHABLE = 1 << 2; // CheckedDisposable or HasDisposables
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  // never held while calling into a child, since children may call back into us (e.g. a
+  // QueuingPausableExecutor whose submitted task, also held here, is disposed as it starts)
+  private final Lock mLock = new ReentrantLock();
+  private Object[] mChildren = new Object[INITIAL_CAPACITY];
+  private byte[] mCapabilities = new byte[INITIAL_CAPACITY];
+  private int mSize = 0;
+  private boolean mIsDisposed = false;
+
+  // held for a whole pause / resume (including the calls into children), never taken by
+  // add / flush / dispose / onDisposed, so children can still call back into us while it's held
+  private final Lock mTransitionLock = new ReentrantLock();
+
+  @Override
+  public void addDisposable(Disposable disposable) {
+    add(disposable);
+  }
+
+  @Override
+  public void addPausable(Pausable pausable) {
+    add(pausable);
+  }
+
+  @Override
+  public void pause() {
+    mTransitionLock.lock();
+    try {
+      Object[] pausables = snapshot(PAUSABLE);
+      for (int i = pausables.length - 1; i >= 0; i--) {
+        ((Pausable) pausables[i]).pause();
+      }
+    } finally {
+      mTransitionLock.unlock();
+    }
+  }
+
+  @Override
+  public void resume() {
+    mTransitionLock.lock();
+    try {
+      Object[] pausables = snapshot(PAUSABLE);
+      for (int i = 0; i < pausables.length; i++) {
+        ((Pausable) pausables[i]).resume();
+      }
+    } finally {
+      mTransitionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean flushDisposed() {
+    Object[] flushable;
+    mLock.lock();
+    try {
+      if (mIsDisposed) {
+        return true;
+      }
+      flushable = copyChildren(FLUSHABLE);
+    } finally {
+      mLock.unlock();
+    }
+
+    Set<Object> flushed = null;
+    for (Object child : flushable) {
+      if (MaybeDisposables.isFlushable(child)) {
+        if (flushed == null) {
+          flushed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        }
+        flushed.add(child);
+      }
+    }
+    if (flushed == null) {
+      return false;
+    }
+
+    mLock.lock();
+    try {
+      if (mIsDisposed) {
+        return true;
+      }
+
+      int kept = 0;
+      for (int i = 0; i < mSize; i++) {
+        if (!flushed.contains(mChildren[i])) {
+          mChildren[kept] = mChildren[i];
+          mCapabilities[kept] = mCapabilities[i];
+          kept++;
+        }
+      }
+      Arrays.fill(mChildren, kept, mSize, null);
+      mSize = kept;
+      return false;
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    List<Object> disposables;
+    mLock.lock();
+    try {
+      if (mIsDisposed) {
+        return;
+      }
+      mIsDisposed = true;
+      disposables = new ArrayList<>(mSize);
+      for (int i = 0; i < mSize; i++) {
+        if ((mCapabilities[i] & DISPOSABLE) != 0) {
+          disposables.add(mChildren[i]);
+        }
+      }
+      mChildren = null;
+      mCapabilities = null;
+      mSize = 0;
+    } finally {
+      mLock.unlock();
+    }
+
+    // disposes in reverse order, outside of our lock
+    MaybeDisposables.disposeList(disposables);
+  }
+
+  @Override
+  public void onDisposed(Disposable disposable) {
+    mLock.lock();
+    try {
+      if (mIsDisposed) {
+        return;
+      }
+      for (int i = 0; i < mSize; i++) {
+        if (mChildren[i] == disposable) {
+          removeAt(i);
+          return;
+        }
+      }
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  private void add(Object child) {
+    byte capabilities = capabilitiesOf(child);
+    mLock.lock();
+    try {
+      throwIfDisposed();
+      if (mSize == mChildren.length) {
+        mChildren = Arrays.copyOf(mChildren, mSize * 2);
+        mCapabilities = Arrays.copyOf(mCapabilities, mSize * 2);
+      }
+      mChildren[mSize] = child;
+      mCapabilities[mSize] = capabilities;
+      mSize++;
+    } finally {
+      mLock.unlock();
+    }
+
+    if (child instanceof ListenableDisposable) {
+      ((ListenableDisposable) child).addDisposeListener(this);
+    }
+  }
+
+  /**
+   * @return the children with the supplied capability, in order, copied while holding mLock.
+   * Throws if we've been disposed.
+   */
+  private Object[] snapshot(byte capability) {
+    mLock.lock();
+    try {
+      throwIfDisposed();
+      return copyChildren(capability);
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private Object[] copyChildren(byte capability) {
+    int count = 0;
+    for (int i = 0; i < mSize; i++) {
+      if ((mCapabilities[i] & capability) != 0) {
+        count++;
+      }
+    }
+    Object[] children = new Object[count];
+    for (int i = 0, j = 0; j < count; i++) {
+      if ((mCapabilities[i] & capability) != 0) {
+        children[j++] = mChildren[i];
+      }
+    }
+    return children;
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void removeAt(int index) {
+    int moved = mSize - index - 1;
+    System.arraycopy(mChildren, index + 1, mChildren, index, moved);
+    System.arraycopy(mCapabilities, index + 1, mCapabilities, index, moved);
+    mChildren[--mSize] = null;
+  }
+
+  /**
+   * Must be called while holding mLock.
+   */
+  private void throwIfDisposed() {
+    if (mIsDisposed) {
+      throw new IllegalStateException(
+          "Attempted to interact with disposable after it's been disposed: " + toString());
+    }
+  }
+
+  private static byte capabilitiesOf(Object child) {
+    byte capabilities = 0;
+    if (child instanceof Pausable) {
+      capabilities |= PAUSABLE;
+    }
+    if (child instanceof Disposable) {
+      capabilities |= DISPOSABLE;
+    }
+    if (child instanceof CheckedDisposable || child instanceof HasDisposables) {
+      capabilities |= FLUSHABLE;
+    }
+    return capabilities;
+  }
+}
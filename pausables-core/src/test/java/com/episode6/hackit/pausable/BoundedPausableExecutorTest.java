@@ -0,0 +1,168 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link BoundedPausableExecutor}
+ */
+public class BoundedPausableExecutorTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mRunnable1;
+  @Mock Runnable mRunnable2;
+  @Mock Runnable mRunnable3;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+
+  @Test
+  public void testUnderCapacity() {
+    BoundedPausableExecutor executor = create(BoundedPausableExecutor.OverflowPolicy.REJECT);
+
+    executor.pause();
+    executor.execute(mRunnable1);
+    executor.execute(mRunnable2);
+
+    assertThat(executor.getCapacity()).isEqualTo(2);
+    assertThat(executor.getQueuedCount()).isEqualTo(2);
+    assertThat(executor.getDroppedCount()).isEqualTo(0);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mRunnable1, mRunnable2);
+    inOrder.verify(mRunnable1).run();
+    inOrder.verify(mRunnable2).run();
+    assertThat(executor.getQueuedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testReject() {
+    BoundedPausableExecutor executor = create(BoundedPausableExecutor.OverflowPolicy.REJECT);
+    executor.pause();
+    executor.execute(mRunnable1);
+    executor.execute(mRunnable2);
+
+    try {
+      executor.execute(mRunnable3);
+      fail("expected RejectedExecutionException");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertThat(executor.getDroppedCount()).isEqualTo(1);
+    resumeAndVerifyRan(executor, mRunnable1, mRunnable2);
+  }
+
+  @Test
+  public void testDropOldest() {
+    BoundedPausableExecutor executor = create(BoundedPausableExecutor.OverflowPolicy.DROP_OLDEST);
+    executor.pause();
+    executor.execute(mRunnable1);
+    executor.execute(mRunnable2);
+    executor.execute(mRunnable3);
+
+    assertThat(executor.getQueuedCount()).isEqualTo(2);
+    assertThat(executor.getDroppedCount()).isEqualTo(1);
+    resumeAndVerifyRan(executor, mRunnable2, mRunnable3);
+  }
+
+  @Test
+  public void testDropNewest() {
+    BoundedPausableExecutor executor = create(BoundedPausableExecutor.OverflowPolicy.DROP_NEWEST);
+    executor.pause();
+    executor.execute(mRunnable1);
+    executor.execute(mRunnable2);
+    executor.execute(mRunnable3);
+
+    assertThat(executor.getQueuedCount()).isEqualTo(2);
+    assertThat(executor.getDroppedCount()).isEqualTo(1);
+    resumeAndVerifyRan(executor, mRunnable1, mRunnable2);
+  }
+
+  @Test
+  public void testBlockTimesOut() {
+    BoundedPausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, 1, 10, TimeUnit.MILLISECONDS);
+    executor.pause();
+    executor.execute(mRunnable1);
+
+    try {
+      executor.execute(mRunnable2);
+      fail("expected RejectedExecutionException");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertThat(executor.getDroppedCount()).isEqualTo(1);
+    resumeAndVerifyRan(executor, mRunnable1);
+  }
+
+  @Test
+  public void testBlockUntilResumed() throws InterruptedException {
+    final BoundedPausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, 1, 10, TimeUnit.SECONDS);
+    final CountDownLatch executed = new CountDownLatch(1);
+    executor.pause();
+    executor.execute(mRunnable1);
+
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(mRunnable2);
+        executed.countDown();
+      }
+    });
+    producer.start();
+
+    assertThat(executed.await(50, TimeUnit.MILLISECONDS)).isFalse();
+    executor.resume();
+    assertThat(executed.await(5, TimeUnit.SECONDS)).isTrue();
+    producer.join();
+
+    mCapturingExecutor.runAll();
+    verify(mRunnable1).run();
+    verify(mRunnable2).run();
+    assertThat(executor.getDroppedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testRequeueAtDispatchIgnoresCapacity() {
+    BoundedPausableExecutor executor = create(BoundedPausableExecutor.OverflowPolicy.REJECT);
+    executor.execute(mRunnable1);
+    executor.execute(mRunnable2);
+    executor.execute(mRunnable3);
+    executor.pause();
+
+    mCapturingExecutor.runAll();
+
+    assertThat(executor.getQueuedCount()).isEqualTo(3);
+    resumeAndVerifyRan(executor, mRunnable1, mRunnable2, mRunnable3);
+  }
+
+  private BoundedPausableExecutor create(BoundedPausableExecutor.OverflowPolicy overflowPolicy) {
+    return Pausables.queuingExecutor(mCapturingExecutor, 2, overflowPolicy);
+  }
+
+  private void resumeAndVerifyRan(BoundedPausableExecutor executor, Runnable... runnables) {
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder((Object[]) runnables);
+    for (Runnable runnable : runnables) {
+      inOrder.verify(runnable).run();
+    }
+    verifyNoMoreInteractions(mRunnable1, mRunnable2, mRunnable3);
+  }
+}
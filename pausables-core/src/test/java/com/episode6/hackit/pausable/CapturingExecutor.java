@@ -0,0 +1,25 @@
+package com.episode6.hackit.pausable;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} for tests that holds onto its runnables until {@link #runAll()} is called.
+ */
+class CapturingExecutor implements Executor {
+  final List<Runnable> mRunnables = new LinkedList<>();
+
+  @Override
+  public void execute(Runnable command) {
+    mRunnables.add(command);
+  }
+
+  void runAll() {
+    List<Runnable> runnables = new LinkedList<>(mRunnables);
+    mRunnables.clear();
+    for (Runnable runnable : runnables) {
+      runnable.run();
+    }
+  }
+}
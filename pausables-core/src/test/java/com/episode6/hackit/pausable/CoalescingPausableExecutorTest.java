@@ -0,0 +1,80 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link CoalescingPausableExecutor}
+ */
+public class CoalescingPausableExecutorTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mRunnable1;
+  @Mock Runnable mRunnable2;
+  @Mock Runnable mRunnable3;
+  @Mock Runnable mRunnable4;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+  final CoalescingPausableExecutor mPausableExecutor = Pausables.coalescingExecutor(mCapturingExecutor);
+
+  @Test
+  public void testNoCoalescingWhenNotPaused() {
+    mPausableExecutor.execute("key", mRunnable1);
+    mPausableExecutor.execute("key", mRunnable2);
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable1).run();
+    verify(mRunnable2).run();
+  }
+
+  @Test
+  public void testCoalesceWhilePaused() {
+    mPausableExecutor.pause();
+    mPausableExecutor.execute("key1", mRunnable1);
+    mPausableExecutor.execute("key2", mRunnable2);
+    mPausableExecutor.execute(mRunnable3);
+    mPausableExecutor.execute("key1", mRunnable4);
+
+    mPausableExecutor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mRunnable2, mRunnable3, mRunnable4);
+    inOrder.verify(mRunnable2).run();
+    inOrder.verify(mRunnable3).run();
+    inOrder.verify(mRunnable4).run();
+    verifyNoMoreInteractions(mRunnable1, mRunnable2, mRunnable3, mRunnable4);
+  }
+
+  @Test
+  public void testUnkeyedNeverCoalesce() {
+    mPausableExecutor.pause();
+    mPausableExecutor.execute(mRunnable1);
+    mPausableExecutor.execute(mRunnable1);
+
+    mPausableExecutor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable1, times(2)).run();
+  }
+
+  @Test
+  public void testRequeuedAtDispatchLosesToNewerTask() {
+    mPausableExecutor.execute("key", mRunnable1);
+    mPausableExecutor.pause();
+    mPausableExecutor.execute("key", mRunnable2);
+    mCapturingExecutor.runAll();
+
+    mPausableExecutor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable2).run();
+    verifyNoMoreInteractions(mRunnable1, mRunnable2);
+  }
+}
@@ -0,0 +1,107 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests {@link Pausables#concurrentExecutor(Executor)}
+ */
+public class ConcurrentPausableExecutorTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mRunnable;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+  final CancellablePausableExecutor mPausableExecutor = Pausables.concurrentExecutor(mCapturingExecutor);
+  final ExecutorService mThreadPool = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    mThreadPool.shutdownNow();
+  }
+
+  @Test
+  public void testExecByDefault() {
+    mPausableExecutor.execute(mRunnable);
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testPauseThenResume() {
+    mPausableExecutor.pause();
+    mPausableExecutor.execute(mRunnable);
+
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+
+    mPausableExecutor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testPausedAtDispatchIsRequeued() {
+    mPausableExecutor.execute(mRunnable);
+    mPausableExecutor.pause();
+    mCapturingExecutor.runAll();
+
+    verifyNoMoreInteractions(mRunnable);
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+
+    mPausableExecutor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testTasksRunConcurrently() throws InterruptedException {
+    PausableExecutor pausableExecutor = Pausables.concurrentExecutor(mThreadPool);
+    final CountDownLatch allStarted = new CountDownLatch(4);
+    final CountDownLatch allFinished = new CountDownLatch(4);
+
+    for (int i = 0; i < 4; i++) {
+      pausableExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          allStarted.countDown();
+          try {
+            // only completes if all 4 tasks are running at the same time
+            if (allStarted.await(5, TimeUnit.SECONDS)) {
+              allFinished.countDown();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+
+    assertThat(allFinished.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testWrapIsIdempotent() {
+    assertThat(Pausables.concurrentExecutor(mPausableExecutor)).isSameAs(mPausableExecutor);
+  }
+}
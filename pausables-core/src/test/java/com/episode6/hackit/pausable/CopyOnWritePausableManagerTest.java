@@ -0,0 +1,179 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.HasDisposables;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link Pausables#newCopyOnWriteManager(Pausable...)}
+ */
+public class CopyOnWritePausableManagerTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Pausable mPausable;
+  @Mock DisposablePausable mDisposablePausable;
+  @Mock CheckedDisposablePausable mCheckedDisposablePausable;
+  @Mock ListenableDisposablePausable mListenableDisposablePausable;
+
+  interface ListenableDisposablePausable extends Pausable, ListenableDisposable {}
+
+  @Test
+  public void testPauseInReverseOrder() {
+    PausableManager manager = Pausables.newCopyOnWriteManager(mPausable, mDisposablePausable);
+    manager.addPausable(mCheckedDisposablePausable);
+
+    manager.pause();
+
+    InOrder inOrder = inOrder(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+    inOrder.verify(mCheckedDisposablePausable).pause();
+    inOrder.verify(mDisposablePausable).pause();
+    inOrder.verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+  }
+
+  @Test
+  public void testResumeInOrder() {
+    PausableManager manager = Pausables.newCopyOnWriteManager(mPausable, mDisposablePausable);
+    manager.addPausable(mCheckedDisposablePausable);
+
+    manager.resume();
+
+    InOrder inOrder = inOrder(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+    inOrder.verify(mPausable).resume();
+    inOrder.verify(mDisposablePausable).resume();
+    inOrder.verify(mCheckedDisposablePausable).resume();
+    verifyNoMoreInteractions(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+  }
+
+  @Test
+  public void testFlushRemovesDisposed() {
+    when(mCheckedDisposablePausable.isDisposed()).thenReturn(true);
+    PausableManager manager = Pausables.newCopyOnWriteManager(mPausable, mCheckedDisposablePausable);
+
+    assertThat(((HasDisposables) manager).flushDisposed()).isFalse();
+    manager.pause();
+
+    verify(mPausable).pause();
+    verify(mCheckedDisposablePausable, never()).pause();
+  }
+
+  @Test
+  public void testDisposedChildIsRemoved() {
+    PausableManager manager = Pausables.newCopyOnWriteManager(mListenableDisposablePausable, mPausable);
+    ArgumentCaptor<DisposeListener> listener = ArgumentCaptor.forClass(DisposeListener.class);
+    verify(mListenableDisposablePausable).addDisposeListener(listener.capture());
+
+    listener.getValue().onDisposed(mListenableDisposablePausable);
+    manager.pause();
+
+    verify(mPausable).pause();
+    verify(mListenableDisposablePausable, never()).pause();
+  }
+
+  @Test
+  public void testInteractAfterDispose() {
+    PausableManager manager = Pausables.newCopyOnWriteManager(mPausable);
+    ((Disposable) manager).dispose();
+
+    try {
+      manager.pause();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    verifyZeroInteractions(mPausable);
+  }
+
+  @Test
+  public void testAddWhileResuming() throws InterruptedException {
+    final PausableManager manager = Pausables.newCopyOnWriteManager();
+    final CountDownLatch resuming = new CountDownLatch(1);
+    final CountDownLatch added = new CountDownLatch(1);
+    manager.addPausable(new Pausable() {
+      @Override
+      public void pause() {}
+
+      @Override
+      public void resume() {
+        resuming.countDown();
+        try {
+          added.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    ExecutorService thread = Executors.newSingleThreadExecutor();
+    thread.execute(new Runnable() {
+      @Override
+      public void run() {
+        manager.resume();
+      }
+    });
+    assertThat(resuming.await(1, TimeUnit.SECONDS)).isTrue();
+
+    // doesn't block behind the resume, and isn't included in it
+    manager.addPausable(mPausable);
+    added.countDown();
+    thread.shutdown();
+
+    assertThat(thread.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    verifyZeroInteractions(mPausable);
+  }
+
+  @Test
+  public void testConcurrentAdds() throws InterruptedException {
+    final PausableManager manager = Pausables.newCopyOnWriteManager();
+    final AtomicInteger pauseCount = new AtomicInteger();
+    final Pausable counter = new Pausable() {
+      @Override
+      public void pause() {
+        pauseCount.incrementAndGet();
+      }
+
+      @Override
+      public void resume() {}
+    };
+    int threads = 4;
+    final CountDownLatch done = new CountDownLatch(threads);
+    ExecutorService threadPool = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < threads; i++) {
+      threadPool.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            manager.addPausable(counter);
+            manager.pause();
+          }
+          done.countDown();
+        }
+      });
+    }
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    threadPool.shutdown();
+    pauseCount.set(0);
+
+    manager.pause();
+
+    assertThat(pauseCount.get()).isEqualTo(4000);
+  }
+}
@@ -0,0 +1,240 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.MaybeDisposables;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link Pausables#debounce(Pausable, long, TimeUnit)} and {@link Pausables#newDebouncedManager(long, TimeUnit)}
+ */
+public class DebouncedPausableTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock ScheduledExecutorService mTimer;
+  @Mock Pausable mPausable;
+
+  @Test
+  public void testForwardsAfterWindow() {
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+
+    verifyZeroInteractions(mPausable);
+    verify(mTimer).schedule(any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(50)), eq(TimeUnit.NANOSECONDS));
+
+    runNextFlush();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testFlappingWithNoNetChange() {
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    debounced.resume();
+    debounced.pause();
+    debounced.resume();
+    runNextFlush();
+
+    verifyZeroInteractions(mPausable);
+    verify(mTimer, times(4)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testFlappingWithNetChange() {
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    debounced.resume();
+    debounced.pause();
+    runNextFlush();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testCallsAfterFlushStartNewWindow() {
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    runNextFlush();
+    debounced.resume();
+    runNextFlush();
+
+    InOrder inOrder = inOrder(mPausable);
+    inOrder.verify(mPausable).pause();
+    inOrder.verify(mPausable).resume();
+    verifyNoMoreInteractions(mPausable);
+    verify(mTimer, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testLaterCallsPushDeadlineBack() {
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+
+    debounced.pause();
+    verify(mTimer).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+    Runnable firstFlush = flush.getValue();
+    debounced.pause();
+    firstFlush.run();
+
+    verifyZeroInteractions(mPausable);
+
+    runNextFlush();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLaterCallsCancelPendingFlush() {
+    ScheduledFuture firstFlush = mock(ScheduledFuture.class);
+    ScheduledFuture secondFlush = mock(ScheduledFuture.class);
+    when(mTimer.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+        .thenReturn(firstFlush, secondFlush);
+    DisposablePausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    debounced.resume();
+
+    verify(firstFlush).cancel(false);
+    verifyZeroInteractions(secondFlush);
+
+    debounced.dispose();
+
+    verify(secondFlush).cancel(false);
+  }
+
+  @Test
+  public void testDelegateThrows() {
+    IllegalStateException failure = new IllegalStateException("busy");
+    doThrow(failure).doNothing().when(mPausable).pause();
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    try {
+      runNextFlush();
+      fail("expected flush to throw");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    debounced.pause();
+    runNextFlush();
+
+    verify(mPausable, times(2)).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testCallbackExecutor() {
+    Executor callbackExecutor = mock(Executor.class);
+    Pausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer, callbackExecutor);
+    ArgumentCaptor<Runnable> callback = ArgumentCaptor.forClass(Runnable.class);
+
+    debounced.pause();
+    runNextFlush();
+
+    verifyZeroInteractions(mPausable);
+    verify(callbackExecutor).execute(callback.capture());
+
+    callback.getValue().run();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testDisposeDropsPendingCalls() {
+    DisposablePausable debounced = Pausables.debounce(mPausable, 50, TimeUnit.MILLISECONDS, mTimer);
+
+    debounced.pause();
+    debounced.dispose();
+    runNextFlush();
+    debounced.resume();
+
+    verifyZeroInteractions(mPausable);
+    verify(mTimer, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testDebouncedManagerFlushesAndDisposes() {
+    CheckedDisposablePausable child = mock(CheckedDisposablePausable.class);
+    PausableManager manager = Pausables.newDebouncedManager(50, TimeUnit.MILLISECONDS, mTimer);
+    manager.addPausable(child);
+
+    when(child.isDisposed()).thenReturn(true);
+    assertThat(MaybeDisposables.isFlushable(manager)).isFalse();
+    verify(child).isDisposed();
+
+    manager.pause();
+    MaybeDisposables.dispose(manager);
+    runNextFlush();
+
+    verify(child, never()).pause();
+    assertThat(MaybeDisposables.isFlushable(manager)).isTrue();
+  }
+
+  @Test
+  public void testDebouncedManager() {
+    Pausable child = mock(Pausable.class);
+    PausableManager manager = Pausables.newDebouncedManager(50, TimeUnit.MILLISECONDS, mTimer);
+    manager.addPausable(child);
+
+    manager.pause();
+    manager.resume();
+    runNextFlush();
+
+    verifyZeroInteractions(child);
+
+    manager.pause();
+    runNextFlush();
+
+    verify(child).pause();
+    verifyNoMoreInteractions(child);
+  }
+
+  @Test
+  public void testSharedTimer() throws InterruptedException {
+    final CountDownLatch paused = new CountDownLatch(1);
+    Pausable debounced = Pausables.debounce(new Pausable() {
+      @Override
+      public void pause() {
+        paused.countDown();
+      }
+
+      @Override
+      public void resume() {}
+    }, 10, TimeUnit.MILLISECONDS);
+
+    debounced.pause();
+
+    assertThat(paused.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private void runNextFlush() {
+    ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+    verify(mTimer, atLeastOnce()).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+    flush.getValue().run();
+  }
+}
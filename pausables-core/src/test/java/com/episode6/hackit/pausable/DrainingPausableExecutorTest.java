@@ -0,0 +1,117 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link DrainingPausableExecutor}
+ */
+public class DrainingPausableExecutorTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock ScheduledExecutorService mScheduler;
+  @Mock Runnable mRunnable;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+
+  DrainingPausableExecutor mPausableExecutor;
+
+  @Before
+  public void setup() {
+    mPausableExecutor = Pausables.drainingExecutor(
+        mCapturingExecutor,
+        mScheduler,
+        DrainingPausableExecutor.DrainPolicy.batches(2, 1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testNoBacklogNoDrain() {
+    mPausableExecutor.pause();
+    mPausableExecutor.resume();
+    mPausableExecutor.execute(mRunnable);
+
+    assertThat(mCapturingExecutor.mRunnables).hasSize(1);
+    assertThat(mPausableExecutor.isDraining()).isFalse();
+    verifyZeroInteractions(mScheduler);
+  }
+
+  @Test
+  public void testDrainInBatches() {
+    queueWhilePaused(5);
+
+    mPausableExecutor.resume();
+
+    assertThat(mCapturingExecutor.mRunnables).hasSize(2);
+    assertThat(mPausableExecutor.isDraining()).isTrue();
+    assertThat(mPausableExecutor.getQueuedCount()).isEqualTo(3);
+    assertThat(mPausableExecutor.getDrainedCount()).isEqualTo(2);
+
+    // fresh work isn't held behind the backlog
+    mPausableExecutor.execute(mRunnable);
+    assertThat(mCapturingExecutor.mRunnables).hasSize(3);
+
+    runNextTick();
+    assertThat(mCapturingExecutor.mRunnables).hasSize(5);
+    assertThat(mPausableExecutor.isDraining()).isTrue();
+
+    runNextTick();
+    assertThat(mCapturingExecutor.mRunnables).hasSize(6);
+    assertThat(mPausableExecutor.isDraining()).isFalse();
+    assertThat(mPausableExecutor.getQueuedCount()).isEqualTo(0);
+    assertThat(mPausableExecutor.getDrainedCount()).isEqualTo(5);
+
+    mCapturingExecutor.runAll();
+    verify(mRunnable, times(6)).run();
+    verify(mScheduler, times(2)).schedule(any(Runnable.class), eq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void testPauseStopsDrain() {
+    queueWhilePaused(5);
+    mPausableExecutor.resume();
+
+    mPausableExecutor.pause();
+    runNextTick();
+
+    assertThat(mCapturingExecutor.mRunnables).hasSize(2);
+    assertThat(mPausableExecutor.isDraining()).isFalse();
+    assertThat(mPausableExecutor.getQueuedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testRatePolicy() {
+    DrainingPausableExecutor.DrainPolicy slow = DrainingPausableExecutor.DrainPolicy.rate(4);
+    DrainingPausableExecutor.DrainPolicy fast = DrainingPausableExecutor.DrainPolicy.rate(100000);
+
+    assertThat(slow.getBatchSize()).isEqualTo(1);
+    assertThat(slow.getInterval(TimeUnit.MILLISECONDS)).isEqualTo(250);
+    assertThat(fast.getBatchSize()).isEqualTo(100);
+    assertThat(fast.getInterval(TimeUnit.MILLISECONDS)).isEqualTo(1);
+  }
+
+  private void queueWhilePaused(int count) {
+    mPausableExecutor.pause();
+    for (int i = 0; i < count; i++) {
+      mPausableExecutor.execute(mRunnable);
+    }
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+  }
+
+  private void runNextTick() {
+    ArgumentCaptor<Runnable> tick = ArgumentCaptor.forClass(Runnable.class);
+    verify(mScheduler, atLeastOnce()).schedule(tick.capture(), anyLong(), any(TimeUnit.class));
+    tick.getValue().run();
+  }
+}
@@ -0,0 +1,285 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import com.episode6.hackit.disposable.MaybeDisposables;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link Pausables#newParallelManager(Executor, int)}
+ */
+public class ParallelPausableManagerTest {
+
+  final ExecutorService mThreadPool = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    mThreadPool.shutdownNow();
+  }
+
+  @Test
+  public void testPausesAndResumesAllChildren() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 4);
+    List<Pausable> children = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Pausable child = mock(Pausable.class);
+      children.add(child);
+      manager.addPausable(child);
+    }
+
+    manager.pauseAsync().get(1, TimeUnit.SECONDS);
+    manager.resumeAsync().get(1, TimeUnit.SECONDS);
+
+    for (Pausable child : children) {
+      InOrder inOrder = inOrder(child);
+      inOrder.verify(child).pause();
+      inOrder.verify(child).resume();
+    }
+  }
+
+  @Test
+  public void testBoundedParallelism() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 2);
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    for (int i = 0; i < 20; i++) {
+      manager.addPausable(new Pausable() {
+        @Override
+        public void pause() {
+          int current = inFlight.incrementAndGet();
+          int max;
+          while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {}
+          sleepUninterruptibly(5);
+          inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void resume() {}
+      });
+    }
+
+    manager.pauseAsync().get(1, TimeUnit.SECONDS);
+
+    assertThat(maxInFlight.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testRunsConcurrently() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 2);
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    for (int i = 0; i < 2; i++) {
+      manager.addPausable(new Pausable() {
+        @Override
+        public void pause() {
+          bothStarted.countDown();
+          try {
+            // only returns if the other child is paused at the same time
+            assertThat(bothStarted.await(1, TimeUnit.SECONDS)).isTrue();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+
+        @Override
+        public void resume() {}
+      });
+    }
+
+    manager.pauseAsync().get(2, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testOrderedGroup() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 4);
+    Pausable first = mock(Pausable.class);
+    Pausable second = mock(Pausable.class);
+    manager.addOrderedGroup(first, second);
+
+    manager.pauseAsync().get(1, TimeUnit.SECONDS);
+    manager.resumeAsync().get(1, TimeUnit.SECONDS);
+
+    InOrder inOrder = inOrder(first, second);
+    inOrder.verify(second).pause();
+    inOrder.verify(first).pause();
+    inOrder.verify(first).resume();
+    inOrder.verify(second).resume();
+  }
+
+  @Test
+  public void testTransitionsDoNotOverlap() throws Exception {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 1);
+    Pausable child = mock(Pausable.class);
+    manager.addPausable(child);
+
+    Future<Void> pause = manager.pauseAsync();
+    Future<Void> resume = manager.resumeAsync();
+
+    assertThat(executor.mRunnables).hasSize(1);
+    verifyZeroInteractions(child);
+
+    executor.runAll();
+
+    assertThat(pause.isDone()).isTrue();
+    assertThat(resume.isDone()).isFalse();
+
+    executor.runAll();
+
+    assertThat(resume.isDone()).isTrue();
+    InOrder inOrder = inOrder(child);
+    inOrder.verify(child).pause();
+    inOrder.verify(child).resume();
+  }
+
+  @Test
+  public void testEmptyManagerCompletesImmediately() {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 4);
+
+    assertThat(manager.pauseAsync().isDone()).isTrue();
+    assertThat(executor.mRunnables).isEmpty();
+  }
+
+  @Test
+  public void testFailureCompletesAfterAllChildren() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 2);
+    Pausable failing = mock(Pausable.class);
+    Pausable child = mock(Pausable.class);
+    RuntimeException failure = new RuntimeException("failed");
+    doThrow(failure).when(failing).pause();
+    manager.addPausable(child);
+    manager.addPausable(failing);
+    manager.addPausable(child);
+
+    try {
+      manager.pauseAsync().get(1, TimeUnit.SECONDS);
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+    }
+
+    verify(child, times(2)).pause();
+  }
+
+  @Test
+  public void testSharedFailureIsNotSelfSuppressed() throws Exception {
+    ParallelPausableManager manager = Pausables.newParallelManager(mThreadPool, 2);
+    Pausable failing = mock(Pausable.class);
+    RuntimeException failure = new RuntimeException("failed");
+    doThrow(failure).when(failing).pause();
+    manager.addPausable(failing);
+    manager.addPausable(failing);
+
+    try {
+      manager.pauseAsync().get(1, TimeUnit.SECONDS);
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+      assertThat(failure.getSuppressed()).isEmpty();
+    }
+
+    verify(failing, times(2)).pause();
+  }
+
+  @Test
+  public void testCancelDoesNotStopTransition() {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 1);
+    Pausable child = mock(Pausable.class);
+    manager.addPausable(child);
+
+    Future<Void> pause = manager.pauseAsync();
+
+    assertThat(pause.cancel(true)).isFalse();
+    assertThat(pause.isCancelled()).isFalse();
+
+    executor.runAll();
+
+    assertThat(pause.isDone()).isTrue();
+    verify(child).pause();
+  }
+
+  @Test
+  public void testFlushDisposedRemovesDisposedChildren() {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 4);
+    CheckedDisposablePausable child = mock(CheckedDisposablePausable.class);
+    when(child.isDisposed()).thenReturn(true);
+    manager.addPausable(child);
+
+    assertThat(MaybeDisposables.isFlushable(manager)).isFalse();
+
+    assertThat(manager.pauseAsync().isDone()).isTrue();
+    assertThat(executor.mRunnables).isEmpty();
+    verify(child, never()).pause();
+  }
+
+  @Test
+  public void testRemovesListenableChildrenWhenDisposed() {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 4);
+    ListenableDisposablePausable child = mock(ListenableDisposablePausable.class);
+    ArgumentCaptor<DisposeListener> listener = ArgumentCaptor.forClass(DisposeListener.class);
+    manager.addPausable(child);
+    verify(child).addDisposeListener(listener.capture());
+
+    listener.getValue().onDisposed(child);
+
+    assertThat(manager.pauseAsync().isDone()).isTrue();
+    verify(child, never()).pause();
+  }
+
+  @Test
+  public void testDispose() {
+    CapturingExecutor executor = new CapturingExecutor();
+    ParallelPausableManager manager = Pausables.newParallelManager(executor, 4);
+    Pausable child = mock(Pausable.class);
+    manager.addPausable(child);
+
+    MaybeDisposables.dispose(manager);
+
+    assertThat(MaybeDisposables.isFlushable(manager)).isTrue();
+    try {
+      manager.pauseAsync();
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    verifyZeroInteractions(child);
+  }
+
+  interface ListenableDisposablePausable extends Pausable, ListenableDisposable {}
+
+  private static void sleepUninterruptibly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
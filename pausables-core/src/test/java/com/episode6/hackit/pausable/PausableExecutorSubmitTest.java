@@ -0,0 +1,268 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposableManager;
+import com.episode6.hackit.disposable.Disposables;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests {@link CancellablePausableExecutor#submit(Runnable)}
+ */
+public class PausableExecutorSubmitTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mRunnable;
+  @Mock Runnable mOtherRunnable;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+
+  @Test
+  public void testSubmitRunsAndReportsDisposed() {
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+
+    CheckedDisposable handle = executor.submit(mRunnable);
+
+    assertThat(handle.isDisposed()).isFalse();
+
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    assertThat(handle.isDisposed()).isTrue();
+  }
+
+  @Test
+  public void testListenersNotifiedOutsideOfExecutorLock() {
+    final CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+    final AtomicBoolean pausedFromListener = new AtomicBoolean(false);
+    CheckedDisposable handle = executor.submit(mRunnable);
+    ((ListenableDisposable) handle).addDisposeListener(new DisposeListener() {
+      @Override
+      public void onDisposed(Disposable disposable) {
+        // stands in for a listener that waits on a thread that is pausing the executor
+        Thread pauser = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            executor.pause();
+          }
+        });
+        pauser.start();
+        try {
+          pauser.join(1000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        pausedFromListener.set(!pauser.isAlive());
+      }
+    });
+
+    mCapturingExecutor.runAll();
+
+    verify(mRunnable).run();
+    assertThat(pausedFromListener.get()).isTrue();
+  }
+
+  @Test
+  public void testDelegateRejectionDuringDrain() {
+    final AtomicInteger rejections = new AtomicInteger(1);
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (rejections.getAndDecrement() > 0) {
+          throw new RejectedExecutionException("busy");
+        }
+        mCapturingExecutor.execute(command);
+      }
+    });
+    executor.pause();
+    CheckedDisposable rejected = executor.submit(mRunnable);
+    CheckedDisposable second = executor.submit(mOtherRunnable);
+    CheckedDisposable third = executor.submit(mOtherRunnable);
+
+    try {
+      executor.resume();
+      fail("expected RejectedExecutionException");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+
+    assertThat(rejected.isDisposed()).isTrue();
+    assertThat(second.isDisposed()).isFalse();
+    assertThat(third.isDisposed()).isFalse();
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+
+    executor.pause();
+    CheckedDisposable fourth = executor.submit(mOtherRunnable);
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable, times(3)).run();
+    verifyZeroInteractions(mRunnable);
+    assertThat(second.isDisposed()).isTrue();
+    assertThat(third.isDisposed()).isTrue();
+    assertThat(fourth.isDisposed()).isTrue();
+  }
+
+  @Test
+  public void testDisposeWhilePausedUnlinks() {
+    BoundedPausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, 2, BoundedPausableExecutor.OverflowPolicy.REJECT);
+    executor.pause();
+    CheckedDisposable handle = executor.submit(mRunnable);
+    executor.submit(mOtherRunnable);
+
+    handle.dispose();
+
+    assertThat(handle.isDisposed()).isTrue();
+    assertThat(executor.getQueuedCount()).isEqualTo(1);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable).run();
+    verifyNoMoreInteractions(mRunnable, mOtherRunnable);
+  }
+
+  @Test
+  public void testSubmitAndDisposeWhilePausedStaysBounded() {
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+    executor.pause();
+    executor.submit(mOtherRunnable);
+
+    for (int i = 0; i < 1000; i++) {
+      executor.submit(mRunnable).dispose();
+    }
+
+    // one live task, so at most two cancelled nodes are waiting for a sweep
+    assertThat(((QueuingPausableExecutor) executor).mRunnables.size()).isLessThanOrEqualTo(3);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable).run();
+    verifyNoMoreInteractions(mRunnable, mOtherRunnable);
+  }
+
+  @Test
+  public void testDisposeAfterDispatchPreventsRun() {
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+
+    CheckedDisposable handle = executor.submit(mRunnable);
+    handle.dispose();
+    mCapturingExecutor.runAll();
+
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testDisposeAfterRequeueUnlinks() {
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+
+    CheckedDisposable handle = executor.submit(mRunnable);
+    executor.pause();
+    mCapturingExecutor.runAll();
+    handle.dispose();
+    executor.resume();
+
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+    verifyNoMoreInteractions(mRunnable);
+  }
+
+  @Test
+  public void testDroppedTaskReportsDisposed() {
+    BoundedPausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, 1, BoundedPausableExecutor.OverflowPolicy.DROP_OLDEST);
+    executor.pause();
+
+    CheckedDisposable oldest = executor.submit(mRunnable);
+    CheckedDisposable newest = executor.submit(mOtherRunnable);
+
+    assertThat(oldest.isDisposed()).isTrue();
+    assertThat(newest.isDisposed()).isFalse();
+  }
+
+  @Test
+  public void testConcurrentDisposeWhilePaused() {
+    CancellablePausableExecutor executor = Pausables.concurrentExecutor(mCapturingExecutor);
+    executor.pause();
+    CheckedDisposable handle = executor.submit(mRunnable);
+    executor.submit(mOtherRunnable);
+
+    handle.dispose();
+    executor.resume();
+
+    assertThat(mCapturingExecutor.mRunnables).hasSize(1);
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable).run();
+    verifyNoMoreInteractions(mRunnable, mOtherRunnable);
+  }
+
+  @Test
+  public void testCoalescedTaskReportsDisposed() {
+    CoalescingPausableExecutor executor = Pausables.coalescingExecutor(mCapturingExecutor);
+    executor.pause();
+
+    CheckedDisposable replaced = executor.submit("key", mRunnable);
+    CheckedDisposable latest = executor.submit("key", mOtherRunnable);
+
+    assertThat(replaced.isDisposed()).isTrue();
+
+    // disposing a replaced task must not unlink its replacement
+    replaced.dispose();
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable).run();
+    verifyNoMoreInteractions(mRunnable, mOtherRunnable);
+    assertThat(latest.isDisposed()).isTrue();
+  }
+
+  @Test
+  public void testPriorityDisposeWhilePaused() {
+    PriorityPausableExecutor executor = Pausables.priorityExecutor(mCapturingExecutor);
+    executor.pause();
+    CheckedDisposable handle = executor.submit(1, mRunnable);
+    executor.submit(0, mOtherRunnable);
+
+    handle.dispose();
+    executor.resume();
+
+    assertThat(mCapturingExecutor.mRunnables).hasSize(1);
+    mCapturingExecutor.runAll();
+
+    verify(mOtherRunnable).run();
+    verifyNoMoreInteractions(mRunnable, mOtherRunnable);
+  }
+
+  @Test
+  public void testManagerCancelsPendingTasks() {
+    CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(mCapturingExecutor);
+    DisposableManager disposableManager = Disposables.newManager();
+    executor.pause();
+
+    disposableManager.addDisposable(executor.submit(mRunnable));
+    disposableManager.dispose();
+    executor.resume();
+
+    assertThat(mCapturingExecutor.mRunnables).isEmpty();
+    verifyNoMoreInteractions(mRunnable);
+  }
+}
@@ -9,7 +9,14 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.mockito.stubbing.Answer;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -60,4 +67,39 @@ public class PausableExecutorTest {
     verify(mRunnable).run();
     verifyNoMoreInteractions(mExecutor, mRunnable);
   }
+
+  @Test
+  public void testConcurrentProducersWhileToggling() throws InterruptedException {
+    final int producers = 4;
+    final int tasksPerProducer = 5000;
+    final AtomicInteger runCount = new AtomicInteger();
+    final Runnable countingRunnable = new Runnable() {
+      @Override
+      public void run() {
+        runCount.incrementAndGet();
+      }
+    };
+    final CountDownLatch done = new CountDownLatch(producers);
+    ExecutorService threadPool = Executors.newFixedThreadPool(producers);
+    for (int i = 0; i < producers; i++) {
+      threadPool.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < tasksPerProducer; j++) {
+            mPausableExecutor.execute(countingRunnable);
+          }
+          done.countDown();
+        }
+      });
+    }
+
+    while (done.getCount() > 0) {
+      mPausableExecutor.pause();
+      mPausableExecutor.resume();
+    }
+    threadPool.shutdown();
+    threadPool.awaitTermination(5, TimeUnit.SECONDS);
+
+    assertThat(runCount.get()).isEqualTo(producers * tasksPerProducer);
+  }
 }
@@ -0,0 +1,131 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link PausableInstrumentation} reporting from {@link Pausables#queuingExecutor(java.util.concurrent.Executor, PausableInstrumentation)}
+ * and {@link Pausables#drainingExecutor(java.util.concurrent.Executor, ScheduledExecutorService, DrainingPausableExecutor.DrainPolicy, PausableInstrumentation)}
+ */
+public class PausableInstrumentationTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock PausableInstrumentation mInstrumentation;
+  @Mock ScheduledExecutorService mDrainScheduler;
+  @Mock Runnable mRunnable;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+
+  @Test
+  public void testReportsPauseAndBacklog() throws InterruptedException {
+    PausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, mInstrumentation);
+
+    executor.pause();
+    executor.execute(mRunnable);
+    executor.execute(mRunnable);
+    executor.execute(mRunnable);
+    Thread.sleep(10);
+    executor.resume();
+
+    ArgumentCaptor<Long> pausedNanos = ArgumentCaptor.forClass(Long.class);
+    verify(mInstrumentation).onResumed(pausedNanos.capture(), eq(3));
+    assertThat(pausedNanos.getValue()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+    verify(mInstrumentation).onBacklogDrained(eq(3), anyLong());
+
+    mCapturingExecutor.runAll();
+
+    ArgumentCaptor<Long> queuedNanos = ArgumentCaptor.forClass(Long.class);
+    verify(mInstrumentation, times(3)).onQueuedTaskStarted(queuedNanos.capture());
+    for (Long nanos : queuedNanos.getAllValues()) {
+      assertThat(nanos).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    verify(mRunnable, times(3)).run();
+    verifyNoMoreInteractions(mInstrumentation);
+  }
+
+  @Test
+  public void testUnpausedTasksNotReported() {
+    PausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, mInstrumentation);
+
+    executor.execute(mRunnable);
+    mCapturingExecutor.runAll();
+    executor.resume();
+
+    verify(mRunnable).run();
+    verifyZeroInteractions(mInstrumentation);
+  }
+
+  @Test
+  public void testRequeuedTaskCountsTowardsBacklog() {
+    PausableExecutor executor = Pausables.queuingExecutor(mCapturingExecutor, mInstrumentation);
+
+    executor.execute(mRunnable);
+    executor.pause();
+    mCapturingExecutor.runAll();
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    verify(mInstrumentation).onResumed(anyLong(), eq(1));
+    verify(mInstrumentation).onBacklogDrained(eq(1), anyLong());
+    verify(mInstrumentation).onQueuedTaskStarted(anyLong());
+    verify(mRunnable).run();
+    verifyNoMoreInteractions(mInstrumentation);
+  }
+
+  @Test
+  public void testGradualDrainReportedWhenEmpty() {
+    DrainingPausableExecutor executor = Pausables.drainingExecutor(
+        mCapturingExecutor,
+        mDrainScheduler,
+        DrainingPausableExecutor.DrainPolicy.batches(2, 10, TimeUnit.MILLISECONDS),
+        mInstrumentation);
+
+    executor.pause();
+    for (int i = 0; i < 3; i++) {
+      executor.execute(mRunnable);
+    }
+    executor.resume();
+
+    verify(mInstrumentation).onResumed(anyLong(), eq(3));
+    verify(mInstrumentation, never()).onBacklogDrained(anyInt(), anyLong());
+
+    ArgumentCaptor<Runnable> drainTick = ArgumentCaptor.forClass(Runnable.class);
+    verify(mDrainScheduler).schedule(drainTick.capture(), anyLong(), any(TimeUnit.class));
+    drainTick.getValue().run();
+
+    verify(mInstrumentation).onBacklogDrained(eq(3), anyLong());
+  }
+
+  @Test
+  public void testPausedMidDrainNotReported() {
+    DrainingPausableExecutor executor = Pausables.drainingExecutor(
+        mCapturingExecutor,
+        mDrainScheduler,
+        DrainingPausableExecutor.DrainPolicy.batches(2, 10, TimeUnit.MILLISECONDS),
+        mInstrumentation);
+
+    executor.pause();
+    for (int i = 0; i < 3; i++) {
+      executor.execute(mRunnable);
+    }
+    executor.resume();
+    executor.pause();
+
+    ArgumentCaptor<Runnable> drainTick = ArgumentCaptor.forClass(Runnable.class);
+    verify(mDrainScheduler).schedule(drainTick.capture(), anyLong(), any(TimeUnit.class));
+    drainTick.getValue().run();
+
+    verify(mInstrumentation, never()).onBacklogDrained(anyInt(), anyLong());
+  }
+}
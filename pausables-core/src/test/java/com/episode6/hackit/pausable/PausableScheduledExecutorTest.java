@@ -0,0 +1,265 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Tests {@link Pausables#scheduledExecutor(java.util.concurrent.Executor)}
+ */
+public class PausableScheduledExecutorTest {
+
+  final ExecutorService mThreadPool = Executors.newFixedThreadPool(2);
+  final PausableScheduledExecutorService mScheduledExecutor = Pausables.scheduledExecutor(mThreadPool);
+
+  @After
+  public void tearDown() {
+    mScheduledExecutor.dispose();
+    mThreadPool.shutdownNow();
+  }
+
+  @Test
+  public void testScheduleRunsAfterDelay() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    mScheduledExecutor.schedule(countDown(latch), 50, TimeUnit.MILLISECONDS);
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testPauseFreezesDelay() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    ScheduledFuture<?> future = mScheduledExecutor.schedule(countDown(latch), 100, TimeUnit.MILLISECONDS);
+
+    mScheduledExecutor.pause();
+    long frozenDelay = future.getDelay(TimeUnit.NANOSECONDS);
+    Thread.sleep(150);
+
+    assertThat(latch.getCount()).isEqualTo(1);
+    assertThat(future.getDelay(TimeUnit.NANOSECONDS)).isEqualTo(frozenDelay);
+
+    long resumedAt = System.nanoTime();
+    mScheduledExecutor.resume();
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(System.nanoTime() - resumedAt).isGreaterThanOrEqualTo(frozenDelay);
+  }
+
+  @Test
+  public void testDueTasksRunOnResume() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    mScheduledExecutor.pause();
+
+    mScheduledExecutor.execute(countDown(latch));
+    Thread.sleep(50);
+
+    assertThat(latch.getCount()).isEqualTo(1);
+
+    mScheduledExecutor.resume();
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testPeriodicDoesNotAccumulateWhilePaused() throws InterruptedException {
+    final AtomicInteger runCount = new AtomicInteger();
+    mScheduledExecutor.scheduleAtFixedRate(increment(runCount), 0, 20, TimeUnit.MILLISECONDS);
+    Thread.sleep(30);
+
+    mScheduledExecutor.pause();
+    Thread.sleep(20);
+    int pausedCount = runCount.get();
+    Thread.sleep(300);
+
+    assertThat(runCount.get()).isEqualTo(pausedCount);
+
+    mScheduledExecutor.resume();
+    Thread.sleep(30);
+
+    // a backlog of missed runs would be ~15 here
+    assertThat(runCount.get() - pausedCount).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  public void testPeriodicSkipsOverrunPeriods() throws InterruptedException {
+    final AtomicInteger runCount = new AtomicInteger();
+    mScheduledExecutor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        if (runCount.incrementAndGet() == 1) {
+          sleepUninterruptibly(200);
+        }
+      }
+    }, 0, 10, TimeUnit.MILLISECONDS);
+
+    Thread.sleep(230);
+
+    // a backlog of missed runs would be ~20 here
+    assertThat(runCount.get()).isLessThanOrEqualTo(5);
+  }
+
+  @Test
+  public void testCancelPreventsRun() throws InterruptedException {
+    AtomicInteger runCount = new AtomicInteger();
+    ScheduledFuture<?> future = mScheduledExecutor.schedule(increment(runCount), 50, TimeUnit.MILLISECONDS);
+
+    future.cancel(false);
+    Thread.sleep(100);
+
+    assertThat(runCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisposeCancelsPendingTasks() throws InterruptedException {
+    AtomicInteger runCount = new AtomicInteger();
+    ScheduledFuture<?> future = mScheduledExecutor.schedule(increment(runCount), 50, TimeUnit.MILLISECONDS);
+
+    mScheduledExecutor.dispose();
+
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(mScheduledExecutor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(runCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisposeCancelsTasksHandedToDelegate() throws Exception {
+    final CountDownLatch blocker = new CountDownLatch(1);
+    ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    PausableScheduledExecutorService scheduledExecutor = Pausables.scheduledExecutor(singleThread);
+    scheduledExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        awaitUninterruptibly(blocker);
+      }
+    });
+    Future<?> future = scheduledExecutor.submit(increment(new AtomicInteger()));
+    Thread.sleep(50);
+
+    scheduledExecutor.dispose();
+    blocker.countDown();
+
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      fail("expected CancellationException");
+    } catch (CancellationException e) {
+      // expected
+    } finally {
+      singleThread.shutdownNow();
+    }
+    assertThat(scheduledExecutor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testDelegateFailureFailsTaskAndKeepsTimer() throws Exception {
+    final RuntimeException failure = new IllegalStateException("broken delegate");
+    final AtomicBoolean failNext = new AtomicBoolean(true);
+    PausableScheduledExecutorService scheduledExecutor = Pausables.scheduledExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (failNext.getAndSet(false)) {
+          throw failure;
+        }
+        mThreadPool.execute(command);
+      }
+    });
+    ScheduledFuture<?> failed = scheduledExecutor.schedule(increment(new AtomicInteger()), 10, TimeUnit.MILLISECONDS);
+
+    try {
+      failed.get(1, TimeUnit.SECONDS);
+      fail("expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isSameAs(failure);
+    }
+
+    CountDownLatch latch = new CountDownLatch(1);
+    scheduledExecutor.schedule(countDown(latch), 10, TimeUnit.MILLISECONDS);
+
+    assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+    scheduledExecutor.dispose();
+  }
+
+  @Test
+  public void testShutdownRunsDelayedTasksAndCancelsPeriodic() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    ScheduledFuture<?> periodic = mScheduledExecutor.scheduleWithFixedDelay(increment(new AtomicInteger()), 10, 10, TimeUnit.MILLISECONDS);
+    mScheduledExecutor.schedule(countDown(latch), 50, TimeUnit.MILLISECONDS);
+
+    mScheduledExecutor.shutdown();
+
+    assertThat(periodic.isCancelled()).isTrue();
+    assertThat(mScheduledExecutor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(latch.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testManyPendingTasks() throws InterruptedException {
+    int taskCount = 100000;
+    CountDownLatch latch = new CountDownLatch(taskCount);
+    Runnable countDown = countDown(latch);
+    mScheduledExecutor.pause();
+    for (int i = 0; i < taskCount; i++) {
+      mScheduledExecutor.schedule(countDown, i % 100, TimeUnit.MILLISECONDS);
+    }
+    Thread.sleep(50);
+
+    assertThat(latch.getCount()).isEqualTo(taskCount);
+
+    mScheduledExecutor.resume();
+
+    assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private static Runnable countDown(final CountDownLatch latch) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    };
+  }
+
+  private static Runnable increment(final AtomicInteger counter) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        counter.incrementAndGet();
+      }
+    };
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    while (true) {
+      try {
+        latch.await();
+        return;
+      } catch (InterruptedException e) {
+        // keep waiting
+      }
+    }
+  }
+
+  private static void sleepUninterruptibly(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
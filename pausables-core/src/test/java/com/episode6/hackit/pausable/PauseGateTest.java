@@ -0,0 +1,179 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests {@link Pausables#pauseGate(Pausable)}
+ */
+public class PauseGateTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Pausable mPausable;
+
+  @Test
+  public void testFirstTokenPauses() {
+    PauseGate pauseGate = Pausables.pauseGate(mPausable);
+
+    pauseGate.acquirePause();
+    pauseGate.acquirePause();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+    assertThat(pauseGate.getPauseCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLastTokenResumes() {
+    PauseGate pauseGate = Pausables.pauseGate(mPausable);
+    CheckedDisposable token1 = pauseGate.acquirePause();
+    CheckedDisposable token2 = pauseGate.acquirePause();
+
+    token1.dispose();
+
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+
+    token2.dispose();
+
+    InOrder inOrder = inOrder(mPausable);
+    inOrder.verify(mPausable).pause();
+    inOrder.verify(mPausable).resume();
+    verifyNoMoreInteractions(mPausable);
+    assertThat(pauseGate.getPauseCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisposeTokenTwice() {
+    PauseGate pauseGate = Pausables.pauseGate(mPausable);
+    CheckedDisposable token1 = pauseGate.acquirePause();
+    pauseGate.acquirePause();
+
+    token1.dispose();
+    token1.dispose();
+
+    assertThat(token1.isDisposed()).isTrue();
+    assertThat(pauseGate.getPauseCount()).isEqualTo(1);
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testPauseThrows() {
+    PauseGate pauseGate = Pausables.pauseGate(mPausable);
+    IllegalStateException failure = new IllegalStateException("busy");
+    doThrow(failure).doNothing().when(mPausable).pause();
+
+    try {
+      pauseGate.acquirePause();
+      fail("expected acquirePause to throw");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    assertThat(pauseGate.getPauseCount()).isEqualTo(0);
+
+    CheckedDisposable token = pauseGate.acquirePause();
+    token.dispose();
+
+    InOrder inOrder = inOrder(mPausable);
+    inOrder.verify(mPausable, times(2)).pause();
+    inOrder.verify(mPausable).resume();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testResumeThrows() {
+    PauseGate pauseGate = Pausables.pauseGate(mPausable);
+    IllegalStateException failure = new IllegalStateException("busy");
+    doThrow(failure).doNothing().when(mPausable).resume();
+    CheckedDisposable token1 = pauseGate.acquirePause();
+
+    try {
+      token1.dispose();
+      fail("expected dispose to throw");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    // the resume never happened, so the gate still considers mPausable paused
+    CheckedDisposable token2 = pauseGate.acquirePause();
+    token2.dispose();
+
+    assertThat(token1.isDisposed()).isTrue();
+    assertThat(pauseGate.getPauseCount()).isEqualTo(0);
+    InOrder inOrder = inOrder(mPausable);
+    inOrder.verify(mPausable).pause();
+    inOrder.verify(mPausable, times(2)).resume();
+    verifyNoMoreInteractions(mPausable);
+  }
+
+  @Test
+  public void testNoTokensNoCalls() {
+    Pausables.pauseGate(mPausable);
+
+    verifyZeroInteractions(mPausable);
+  }
+
+  @Test
+  public void testConcurrentOwners() throws InterruptedException {
+    final AtomicBoolean paused = new AtomicBoolean(false);
+    final AtomicInteger illegalTransitions = new AtomicInteger();
+    final PauseGate pauseGate = Pausables.pauseGate(new Pausable() {
+      @Override
+      public void pause() {
+        if (!paused.compareAndSet(false, true)) {
+          illegalTransitions.incrementAndGet();
+        }
+      }
+
+      @Override
+      public void resume() {
+        if (!paused.compareAndSet(true, false)) {
+          illegalTransitions.incrementAndGet();
+        }
+      }
+    });
+    int owners = 4;
+    final CountDownLatch done = new CountDownLatch(owners);
+    ExecutorService threadPool = Executors.newFixedThreadPool(owners);
+    for (int i = 0; i < owners; i++) {
+      threadPool.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; j++) {
+            pauseGate.acquirePause().dispose();
+          }
+          done.countDown();
+        }
+      });
+    }
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    threadPool.shutdown();
+
+    assertThat(illegalTransitions.get()).isEqualTo(0);
+    assertThat(pauseGate.getPauseCount()).isEqualTo(0);
+    assertThat(paused.get()).isFalse();
+  }
+}
@@ -0,0 +1,92 @@
+package com.episode6.hackit.pausable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link PriorityPausableExecutor}
+ */
+public class PriorityPausableExecutorTest {
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Runnable mLow;
+  @Mock Runnable mDefault;
+  @Mock Runnable mHigh1;
+  @Mock Runnable mHigh2;
+
+  final CapturingExecutor mCapturingExecutor = new CapturingExecutor();
+
+  @Test
+  public void testDispatchInPriorityOrder() {
+    PriorityPausableExecutor executor = Pausables.priorityExecutor(mCapturingExecutor);
+    executor.pause();
+    executor.execute(-1, mLow);
+    executor.execute(10, mHigh1);
+    executor.execute(mDefault);
+    executor.execute(10, mHigh2);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mLow, mDefault, mHigh1, mHigh2);
+    inOrder.verify(mHigh1).run();
+    inOrder.verify(mHigh2).run();
+    inOrder.verify(mDefault).run();
+    inOrder.verify(mLow).run();
+  }
+
+  @Test
+  public void testNotPausedRunsImmediately() {
+    PriorityPausableExecutor executor = Pausables.priorityExecutor(mCapturingExecutor);
+    executor.execute(-1, mLow);
+    executor.execute(10, mHigh1);
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mLow, mHigh1);
+    inOrder.verify(mLow).run();
+    inOrder.verify(mHigh1).run();
+  }
+
+  @Test
+  public void testAgingPreventsStarvation() throws InterruptedException {
+    PriorityPausableExecutor executor = Pausables.priorityExecutor(mCapturingExecutor, 1, TimeUnit.MILLISECONDS);
+    executor.pause();
+    executor.execute(0, mLow);
+    Thread.sleep(50);
+    executor.execute(5, mHigh1);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mLow, mHigh1);
+    inOrder.verify(mLow).run();
+    inOrder.verify(mHigh1).run();
+  }
+
+  @Test
+  public void testRequeuedKeepsPriority() {
+    PriorityPausableExecutor executor = Pausables.priorityExecutor(mCapturingExecutor);
+    executor.execute(10, mHigh1);
+    executor.pause();
+    executor.execute(-1, mLow);
+    mCapturingExecutor.runAll();
+
+    verifyZeroInteractions(mHigh1, mLow);
+
+    executor.resume();
+    mCapturingExecutor.runAll();
+
+    InOrder inOrder = inOrder(mLow, mHigh1);
+    inOrder.verify(mHigh1).run();
+    inOrder.verify(mLow).run();
+  }
+}
@@ -0,0 +1,267 @@
+package com.episode6.hackit.pausable;
+
+import com.episode6.hackit.disposable.CheckedDisposable;
+import com.episode6.hackit.disposable.Disposable;
+import com.episode6.hackit.disposable.DisposeListener;
+import com.episode6.hackit.disposable.ListenableDisposable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link Pausables#newUnifiedDisposableManager()}
+ */
+public class UnifiedPausableDisposableManagerTest {
+
+  interface ListenableDisposablePausable extends Pausable, ListenableDisposable {}
+
+  @Rule public final MockitoRule mockito = MockitoJUnit.rule();
+
+  @Mock Pausable mPausable;
+  @Mock Disposable mDisposable;
+  @Mock DisposablePausable mDisposablePausable;
+  @Mock CheckedDisposablePausable mCheckedDisposablePausable;
+  @Mock CheckedDisposable mCheckedDisposable;
+  @Mock ListenableDisposablePausable mListenableDisposablePausable;
+
+  final PausableDisposableManager mManager = Pausables.newUnifiedDisposableManager();
+
+  @Test
+  public void testPause() {
+    mManager.addPausable(mPausable);
+    mManager.addDisposable(mDisposable);
+    mManager.addDisposable(mDisposablePausable);
+    mManager.addPausable(mCheckedDisposablePausable);
+
+    mManager.pause();
+
+    InOrder inOrder = inOrder(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+    inOrder.verify(mCheckedDisposablePausable).pause();
+    inOrder.verify(mDisposablePausable).pause();
+    inOrder.verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable, mDisposable, mDisposablePausable, mCheckedDisposablePausable);
+  }
+
+  @Test
+  public void testResume() {
+    mManager.addPausable(mPausable);
+    mManager.addDisposable(mDisposable);
+    mManager.addDisposable(mDisposablePausable);
+    mManager.addPausable(mCheckedDisposablePausable);
+
+    mManager.resume();
+
+    InOrder inOrder = inOrder(mPausable, mDisposablePausable, mCheckedDisposablePausable);
+    inOrder.verify(mPausable).resume();
+    inOrder.verify(mDisposablePausable).resume();
+    inOrder.verify(mCheckedDisposablePausable).resume();
+    verifyNoMoreInteractions(mPausable, mDisposable, mDisposablePausable, mCheckedDisposablePausable);
+  }
+
+  @Test
+  public void testDispose() {
+    mManager.addPausable(mPausable);
+    mManager.addDisposable(mDisposable);
+    mManager.addPausable(mDisposablePausable);
+    mManager.addDisposable(mCheckedDisposablePausable);
+
+    mManager.dispose();
+
+    InOrder inOrder = inOrder(mDisposable, mDisposablePausable, mCheckedDisposablePausable);
+    inOrder.verify(mCheckedDisposablePausable).dispose();
+    inOrder.verify(mDisposablePausable).dispose();
+    inOrder.verify(mDisposable).dispose();
+    verifyNoMoreInteractions(mPausable, mDisposable, mDisposablePausable, mCheckedDisposablePausable);
+    assertThat(mManager.flushDisposed()).isTrue();
+  }
+
+  @Test
+  public void testFlushChecksEachChildOnce() {
+    when(mCheckedDisposablePausable.isDisposed()).thenReturn(true);
+    mManager.addPausable(mCheckedDisposablePausable);
+    mManager.addDisposable(mCheckedDisposable);
+    mManager.addPausable(mPausable);
+
+    assertThat(mManager.flushDisposed()).isFalse();
+    mManager.pause();
+    mManager.dispose();
+
+    verify(mCheckedDisposablePausable).isDisposed();
+    verify(mCheckedDisposable).isDisposed();
+    verify(mCheckedDisposable).dispose();
+    verify(mPausable).pause();
+    verifyNoMoreInteractions(mPausable, mCheckedDisposable, mCheckedDisposablePausable);
+  }
+
+  @Test
+  public void testListensOnceAndRemovesOnDispose() {
+    mManager.addPausable(mListenableDisposablePausable);
+    ArgumentCaptor<DisposeListener> listener = ArgumentCaptor.forClass(DisposeListener.class);
+    verify(mListenableDisposablePausable).addDisposeListener(listener.capture());
+
+    listener.getValue().onDisposed(mListenableDisposablePausable);
+    mManager.pause();
+    mManager.dispose();
+
+    verifyNoMoreInteractions(mListenableDisposablePausable);
+  }
+
+  @Test
+  public void testPauseWhileExecutorTaskIsStarting() throws InterruptedException {
+    ExecutorService threadPool = Executors.newSingleThreadExecutor();
+    try {
+      CancellablePausableExecutor executor = Pausables.cancellableQueuingExecutor(threadPool);
+      CancellablePausableExecutor pausedExecutor = Pausables.cancellableQueuingExecutor(new CapturingExecutor());
+      pausedExecutor.pause();
+      final CheckedDisposable sibling = pausedExecutor.submit(mock(Runnable.class));
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch finished = new CountDownLatch(1);
+      final Thread pauser = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          mManager.pause();
+        }
+      });
+      pauser.setDaemon(true);
+      mManager.addPausable(executor);
+      mManager.addDisposable(sibling);
+
+      // the task runs while the executor holds its lock, and disposes a sibling that the manager
+      // is listening to while the manager is trying to pause the executor
+      mManager.addDisposable(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          started.countDown();
+          awaitWaiting(pauser);
+          sibling.dispose();
+          finished.countDown();
+        }
+      }));
+      assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+      pauser.start();
+
+      assertThat(finished.await(1, TimeUnit.SECONDS)).isTrue();
+      pauser.join(1000);
+      assertThat(pauser.isAlive()).isFalse();
+      assertThat(mManager.flushDisposed()).isFalse();
+    } finally {
+      threadPool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentPauseAndResume() throws Exception {
+    final AtomicInteger inTransition = new AtomicInteger();
+    final AtomicBoolean overlapped = new AtomicBoolean(false);
+    for (int i = 0; i < 3; i++) {
+      mManager.addPausable(new Pausable() {
+        @Override
+        public void pause() {
+          transition();
+        }
+
+        @Override
+        public void resume() {
+          transition();
+        }
+
+        private void transition() {
+          if (inTransition.incrementAndGet() != 1) {
+            overlapped.set(true);
+          }
+          LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+          inTransition.decrementAndGet();
+        }
+      });
+    }
+    ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      Future<?> pauses = threadPool.submit(new Runnable() {
+        @Override
+        public void run() {
+          awaitQuietly(start);
+          for (int i = 0; i < 100; i++) {
+            mManager.pause();
+          }
+        }
+      });
+      Future<?> resumes = threadPool.submit(new Runnable() {
+        @Override
+        public void run() {
+          awaitQuietly(start);
+          for (int i = 0; i < 100; i++) {
+            mManager.resume();
+          }
+        }
+      });
+      start.countDown();
+      pauses.get(10, TimeUnit.SECONDS);
+      resumes.get(10, TimeUnit.SECONDS);
+
+      assertThat(overlapped.get()).isFalse();
+    } finally {
+      threadPool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testManyChildren() {
+    Pausable[] pausables = new Pausable[100];
+    for (int i = 0; i < pausables.length; i++) {
+      pausables[i] = mock(Pausable.class);
+      mManager.addPausable(pausables[i]);
+    }
+
+    mManager.resume();
+
+    InOrder inOrder = inOrder((Object[]) pausables);
+    for (Pausable pausable : pausables) {
+      inOrder.verify(pausable).resume();
+    }
+  }
+
+  @Test
+  public void testInteractAfterDispose() {
+    mManager.dispose();
+
+    try {
+      mManager.addPausable(mPausable);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private static void awaitWaiting(Thread thread) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+      Thread.yield();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}